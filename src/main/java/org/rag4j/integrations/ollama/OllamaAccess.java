@@ -2,6 +2,7 @@ package org.rag4j.integrations.ollama;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.rag4j.rag.embedding.EmbeddingVector;
 
 import java.io.IOException;
 import java.net.URI;
@@ -62,23 +63,54 @@ public class OllamaAccess {
     }
 
     public List<Float> generateEmbedding(String text, String model) {
-        String connectionUrl = this.connectionUrl + "/api/embeddings";
+        return generateEmbeddingVector(text, model).toList();
+    }
+
+    /**
+     * Generates the embedding of the text, the values are parsed straight into a primitive array. The text is sent to
+     * the batch endpoint as a single input, so it gets the same normalised embedding as with
+     * {@link #generateEmbeddingVectors(List, String)}.
+     */
+    public EmbeddingVector generateEmbeddingVector(String text, String model) {
+        return generateEmbeddingVectors(List.of(text), model).getFirst();
+    }
+
+    /**
+     * Generates the embeddings of multiple texts with one call to the batch endpoint.
+     */
+    public List<List<Float>> generateEmbeddings(List<String> texts, String model) {
+        return generateEmbeddingVectors(texts, model).stream().map(EmbeddingVector::toList).toList();
+    }
+
+    /**
+     * Generates the embeddings of multiple texts with one call to the batch endpoint, the values are parsed straight
+     * into primitive arrays.
+     */
+    public List<EmbeddingVector> generateEmbeddingVectors(List<String> texts, String model) {
+        String connectionUrl = this.connectionUrl + "/api/embed";
 
         JSONObject jsonRequest = new JSONObject();
-        jsonRequest.put("prompt", text);
+        jsonRequest.put("input", new JSONArray(texts));
         jsonRequest.put("model", model);
-        execute_post_request(connectionUrl, jsonRequest);
 
         JSONObject jsonResponse = execute_post_request(connectionUrl, jsonRequest);
 
-        JSONArray jsonArray = jsonResponse.getJSONArray("embedding");
-        List<Float> embeddings = new ArrayList<>();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            embeddings.add(jsonArray.getFloat(i));
+        JSONArray jsonEmbeddings = jsonResponse.getJSONArray("embeddings");
+        List<EmbeddingVector> embeddings = new ArrayList<>(jsonEmbeddings.length());
+        for (int i = 0; i < jsonEmbeddings.length(); i++) {
+            embeddings.add(toEmbeddingVector(jsonEmbeddings.getJSONArray(i)));
         }
         return embeddings;
     }
 
+    private static EmbeddingVector toEmbeddingVector(JSONArray jsonArray) {
+        float[] values = new float[jsonArray.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = jsonArray.getFloat(i);
+        }
+        return EmbeddingVector.of(values);
+    }
+
     private JSONObject execute_get_request(String connectionUrl) {
         HttpResponse<String> response;
         try (HttpClient client = HttpClient.newHttpClient()) {
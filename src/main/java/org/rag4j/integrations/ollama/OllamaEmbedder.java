@@ -1,9 +1,16 @@
 package org.rag4j.integrations.ollama;
 
 import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
 
 import java.util.List;
 
+/**
+ * Embedder that uses a model served by Ollama. All texts go to the <code>/api/embed</code> endpoint, which returns
+ * normalised vectors, so this embedder requires a version of Ollama that offers that endpoint. Vectors indexed with an
+ * older version of this class came from the <code>/api/embeddings</code> endpoint, which does not normalise them.
+ * They are in a different space than the vectors of new questions, index those chunks again.
+ */
 public class OllamaEmbedder implements Embedder {
     private final OllamaAccess ollama;
     private final String embeddingModel;
@@ -22,4 +29,29 @@ public class OllamaEmbedder implements Embedder {
     public List<Float> embed(String text) {
         return this.ollama.generateEmbedding(text, this.embeddingModel);
     }
+
+    @Override
+    public List<List<Float>> embedAll(List<String> texts) {
+        return this.ollama.generateEmbeddings(texts, this.embeddingModel);
+    }
+
+    @Override
+    public String identifier() {
+        return "ollama/" + this.embeddingModel;
+    }
+
+    @Override
+    public boolean producesNormalizedVectors() {
+        return true;
+    }
+
+    @Override
+    public EmbeddingVector embedVector(String text) {
+        return this.ollama.generateEmbeddingVector(text, this.embeddingModel);
+    }
+
+    @Override
+    public List<EmbeddingVector> embedAllVectors(List<String> texts) {
+        return this.ollama.generateEmbeddingVectors(texts, this.embeddingModel);
+    }
 }
@@ -1,10 +1,12 @@
 package org.rag4j.integrations.openai;
 
 import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.models.EmbeddingItem;
 import com.azure.ai.openai.models.Embeddings;
 import com.azure.ai.openai.models.EmbeddingsOptions;
 import org.rag4j.rag.embedding.Embedder;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -13,6 +15,11 @@ import java.util.List;
  * of text. The embedding is created using the OpenAI API.
  */
 public class OpenAIEmbedder implements Embedder {
+    /**
+     * The maximum number of inputs the API accepts in one embeddings request.
+     */
+    private static final int MAX_BATCH_SIZE = 2048;
+
     private final OpenAIClient client;
     private final String model;
 
@@ -33,4 +40,36 @@ public class OpenAIEmbedder implements Embedder {
 
         return embeddings.getData().getFirst().getEmbedding();
     }
+
+    /**
+     * Sends the texts as multiple inputs of one request, split into requests of at most 2048 texts.
+     */
+    @Override
+    public List<List<Float>> embedAll(List<String> texts) {
+        List<List<Float>> result = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += MAX_BATCH_SIZE) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + MAX_BATCH_SIZE));
+            Embeddings embeddings = this.client.getEmbeddings(this.model, new EmbeddingsOptions(batch));
+
+            List<List<Float>> batchResult = new ArrayList<>(Collections.nCopies(batch.size(), null));
+            for (EmbeddingItem item : embeddings.getData()) {
+                batchResult.set(item.getPromptIndex(), item.getEmbedding());
+            }
+            result.addAll(batchResult);
+        }
+        return result;
+    }
+
+    @Override
+    public String identifier() {
+        return "openai/" + this.model;
+    }
+
+    /**
+     * OpenAI embeddings are normalised to length one.
+     */
+    @Override
+    public boolean producesNormalizedVectors() {
+        return true;
+    }
 }
@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.rag4j.integrations.weaviate.WeaviateAccess;
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.Chunk;
 
 public class WeaviateChunkIndexer {
@@ -16,14 +17,20 @@ public class WeaviateChunkIndexer {
     }
 
     public String indexChunk(Chunk chunk, List<Float> vector, String collection) {
+        return indexChunk(chunk, vector.toArray(new Float[0]), collection);
+    }
+
+    public String indexChunk(Chunk chunk, EmbeddingVector vector, String collection) {
+        return indexChunk(chunk, vector.toBoxedArray(), collection);
+    }
+
+    private String indexChunk(Chunk chunk, Float[] floatVector, String collection) {
         Map<String, Object> properties = new HashMap<>(chunk.getProperties());
         properties.put("documentId", chunk.getDocumentId());
         properties.put("chunkId", chunk.getChunkId());
         properties.put("totalChunks", chunk.getTotalChunks());
         properties.put("text", chunk.getText());
 
-        Float[] floatVector = vector.toArray(new Float[0]);
-
         if (!chunk.getProperties().isEmpty()) {
             properties.putAll(chunk.getProperties());
         }
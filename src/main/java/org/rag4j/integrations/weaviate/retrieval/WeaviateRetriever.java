@@ -15,6 +15,7 @@ import org.rag4j.integrations.weaviate.WeaviateException;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.retrieval.ChunkProcessor;
 import org.rag4j.rag.retrieval.Retriever;
 
@@ -66,8 +67,15 @@ public class WeaviateRetriever implements Retriever {
 
     @Override
     public List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults) {
-        Float[] floatVector = vector.toArray(new Float[0]);
+        return findRelevantChunks(question, vector.toArray(new Float[0]), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        return findRelevantChunks(question, vector.toBoxedArray(), maxResults);
+    }
 
+    private List<RelevantChunk> findRelevantChunks(String question, Float[] floatVector, int maxResults) {
         Get get = weaviateAccess.getClient().graphQL().get()
                 .withClassName(collection)
                 .withFields(buildFields(true))
@@ -4,6 +4,7 @@ import org.rag4j.integrations.weaviate.indexer.WeaviateChunkIndexer;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.store.ContentStore;
 import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.slf4j.Logger;
 
 import java.util.List;
@@ -23,8 +24,10 @@ public class WeaviateContentStore implements ContentStore {
 
     @Override
     public void store(List<Chunk> chunks) {
-        for (Chunk chunk : chunks) {
-            String documentId = weaviateChunkIndexer.indexChunk(chunk, embedder.embed(chunk.getText()), this.collection);
+        List<EmbeddingVector> embeddings = embedder.embedAllVectors(chunks.stream().map(Chunk::getText).toList());
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            String documentId = weaviateChunkIndexer.indexChunk(chunk, embeddings.get(i), this.collection);
             LOGGER.info("Indexed chunk {} with documentId {}", chunk, documentId);
         }
     }
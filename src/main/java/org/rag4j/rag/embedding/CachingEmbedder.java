@@ -0,0 +1,185 @@
+package org.rag4j.rag.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Embedder that remembers the embeddings of another embedder. An embedding is stored under the SHA-256 hash of the
+ * {@link Embedder#identifier()} of the embedder and the text, so a different model never returns a cached embedding of
+ * another one. The memory tier keeps the most recently used embeddings, the optional {@link EmbeddingStore} keeps all
+ * of them, also between runs. With a store a content store only pays for the chunks it has not seen before when
+ * documents are indexed again.
+ * <p>Texts missing from both tiers are passed to the embedder in one {@link Embedder#embedAllVectors(List)} call. Two
+ * threads that miss on the same text at the same time both call the embedder, the last result is cached.</p>
+ * <p>The returned vectors are shared by all callers, treat them as read-only.</p>
+ */
+public class CachingEmbedder implements Embedder {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Embedder embedder;
+    private final EmbeddingStore embeddingStore;
+    private final boolean normalizeText;
+    private final Map<String, EmbeddingVector> memory;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingEmbedder(Embedder embedder) {
+        this(embedder, CachingEmbedderConfig.defaults());
+    }
+
+    public CachingEmbedder(Embedder embedder, CachingEmbedderConfig config) {
+        this.embedder = embedder;
+        this.embeddingStore = config.getEmbeddingStore();
+        this.normalizeText = config.isNormalizeText();
+        int maxEntries = config.getMaxEntries();
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EmbeddingVector> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<Float> embed(String text) {
+        return embedVector(text).toList();
+    }
+
+    @Override
+    public List<List<Float>> embedAll(List<String> texts) {
+        return embedAllVectors(texts).stream().map(EmbeddingVector::toList).toList();
+    }
+
+    @Override
+    public EmbeddingVector embedVector(String text) {
+        return embedAllVectors(List.of(text)).getFirst();
+    }
+
+    @Override
+    public List<EmbeddingVector> embedAllVectors(List<String> texts) {
+        String identifier = this.embedder.identifier();
+        List<EmbeddingVector> embeddings = new ArrayList<>(texts.size());
+        Map<String, List<Integer>> missingKeys = new LinkedHashMap<>();
+        Map<String, String> missingTexts = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = key(identifier, this.normalizeText ? normalize(texts.get(i)) : texts.get(i));
+            EmbeddingVector embedding = lookup(key);
+            embeddings.add(embedding);
+            if (embedding == null) {
+                missingKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                missingTexts.put(key, texts.get(i));
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return embeddings;
+        }
+
+        this.misses.add(missingKeys.size());
+        List<String> keys = new ArrayList<>(missingKeys.keySet());
+        List<EmbeddingVector> created = this.embedder.embedAllVectors(keys.stream().map(missingTexts::get).toList());
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            EmbeddingVector embedding = created.get(i);
+            remember(key, embedding);
+            if (this.embeddingStore != null) {
+                this.embeddingStore.put(key, embedding);
+            }
+            for (int index : missingKeys.get(key)) {
+                embeddings.set(index, embedding);
+            }
+        }
+        return embeddings;
+    }
+
+    @Override
+    public String identifier() {
+        return this.embedder.identifier();
+    }
+
+    @Override
+    public boolean producesNormalizedVectors() {
+        return this.embedder.producesNormalizedVectors();
+    }
+
+    /**
+     * @return the counters of the cache since it was created
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(this.hits.sum(), this.storeHits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    /**
+     * Removes all embeddings from the memory tier, the embedding store is kept.
+     */
+    public void clearMemory() {
+        synchronized (this.memory) {
+            this.memory.clear();
+        }
+    }
+
+    /**
+     * Counters of a {@link CachingEmbedder}. A text found in memory counts as a hit, found in the embedding store as a
+     * store hit, and a text that had to be embedded as a miss. Evictions count the embeddings removed from the memory
+     * tier.
+     */
+    public record CacheStatistics(long hits, long storeHits, long misses, long evictions) {
+        public double hitRatio() {
+            long total = hits + storeHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + storeHits) / total;
+        }
+    }
+
+    private EmbeddingVector lookup(String key) {
+        EmbeddingVector embedding;
+        synchronized (this.memory) {
+            embedding = this.memory.get(key);
+        }
+        if (embedding != null) {
+            this.hits.increment();
+            return embedding;
+        }
+        embedding = this.embeddingStore != null ? this.embeddingStore.get(key) : null;
+        if (embedding != null) {
+            this.storeHits.increment();
+            remember(key, embedding);
+        }
+        return embedding;
+    }
+
+    private void remember(String key, EmbeddingVector embedding) {
+        synchronized (this.memory) {
+            this.memory.put(key, embedding);
+        }
+    }
+
+    private static String normalize(String text) {
+        return WHITESPACE.matcher(text.strip()).replaceAll(" ");
+    }
+
+    private static String key(String identifier, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(identifier.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
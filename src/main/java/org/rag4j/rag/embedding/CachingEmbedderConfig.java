@@ -0,0 +1,30 @@
+package org.rag4j.rag.embedding;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configuration of the {@link CachingEmbedder}.
+ * <ul>
+ *     <li><code>maxEntries</code> - the number of embeddings kept in memory, the least recently used embedding is
+ *     evicted when the cache is full.</li>
+ *     <li><code>embeddingStore</code> - optional durable tier behind the memory, for instance a
+ *     {@link DirectoryEmbeddingStore} or a {@link LogEmbeddingStore}. Without a store only the memory tier is
+ *     used.</li>
+ *     <li><code>normalizeText</code> - trims the text and collapses runs of whitespace before computing the key, so
+ *     chunks that only differ in whitespace share an embedding. The embedder still receives the original text.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class CachingEmbedderConfig {
+    @Builder.Default
+    private int maxEntries = 10_000;
+    private EmbeddingStore embeddingStore;
+    @Builder.Default
+    private boolean normalizeText = false;
+
+    public static CachingEmbedderConfig defaults() {
+        return CachingEmbedderConfig.builder().build();
+    }
+}
@@ -0,0 +1,108 @@
+package org.rag4j.rag.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores every embedding in its own file, spread over 256 subdirectories by the first byte of the key. Simple and safe
+ * to share between processes, for large numbers of embeddings the {@link LogEmbeddingStore} uses far fewer files.
+ * A file that is truncated or does not hold an embedding is logged and treated as a missing embedding, other failures
+ * to read or write a file throw an {@link UncheckedIOException}.
+ */
+public class DirectoryEmbeddingStore implements EmbeddingStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryEmbeddingStore.class);
+    private static final int MAGIC = 0x52344A45;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+
+    public DirectoryEmbeddingStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public EmbeddingVector get(String key) {
+        Path file = path(key);
+        try (InputStream inputStream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(inputStream)) {
+            if (in.readInt() != MAGIC) {
+                LOGGER.warn("Ignoring cached embedding {} with an unknown format", key);
+                return null;
+            }
+            int dimension = in.readInt();
+            // The dimension is checked against the file before it sizes an array
+            if (dimension < 1 || dimension > LogEmbeddingStore.MAX_DIMENSION
+                    || Files.size(file) != HEADER_BYTES + 4L * dimension) {
+                LOGGER.warn("Ignoring cached embedding {} with a dimension of {} that does not match its file", key,
+                        dimension);
+                return null;
+            }
+            byte[] bytes = new byte[4 * dimension];
+            in.readFully(bytes);
+            float[] values = new float[dimension];
+            ByteBuffer.wrap(bytes).asFloatBuffer().get(values);
+            return EmbeddingVector.of(values);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (EOFException e) {
+            LOGGER.warn("Ignoring truncated cached embedding {}", key);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cached embedding " + key + " from " + file, e);
+        }
+    }
+
+    /**
+     * Writes the embedding to a temporary file and moves it in place, a reader never sees a partial file.
+     */
+    @Override
+    public void put(String key, EmbeddingVector embedding) {
+        float[] values = embedding.values();
+        if (values.length < 1 || values.length > LogEmbeddingStore.MAX_DIMENSION) {
+            throw new IllegalArgumentException("The dimension of an embedding must be between 1 and "
+                    + LogEmbeddingStore.MAX_DIMENSION + ", not " + values.length);
+        }
+        Path target = path(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temporary = Files.createTempFile(target.getParent(), key, ".tmp");
+            try {
+                ByteBuffer bytes = ByteBuffer.allocate(4 * values.length);
+                bytes.asFloatBuffer().put(values);
+                try (OutputStream outputStream = Files.newOutputStream(temporary);
+                     DataOutputStream out = new DataOutputStream(outputStream)) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(values.length);
+                    out.write(bytes.array());
+                }
+                try {
+                    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cached embedding " + key + " to " + target, e);
+        }
+    }
+
+    private Path path(String key) {
+        return this.directory.resolve(key.substring(0, 2)).resolve(key + ".vec");
+    }
+}
@@ -12,4 +12,51 @@ public interface Embedder {
      * @return the embedding
      */
     List<Float> embed(String text);
+
+    /**
+     * Creates embeddings for multiple texts. The default calls {@link #embed(String)} for every text, implementations
+     * that can embed a batch in one call to their backend override it.
+     * @param texts the texts to create embeddings for
+     * @return the embeddings in the same order as the texts
+     */
+    default List<List<Float>> embedAll(List<String> texts) {
+        return texts.stream().map(this::embed).toList();
+    }
+
+    /**
+     * Creates an embedding backed by a primitive array. The default converts the result of {@link #embed(String)},
+     * implementations that produce a <code>float[]</code> override it to skip the boxing.
+     * @param text the text to create an embedding for
+     * @return the embedding
+     */
+    default EmbeddingVector embedVector(String text) {
+        return EmbeddingVector.fromList(embed(text));
+    }
+
+    /**
+     * Creates embeddings backed by primitive arrays for multiple texts, see {@link #embedVector(String)}.
+     * @param texts the texts to create embeddings for
+     * @return the embeddings in the same order as the texts
+     */
+    default List<EmbeddingVector> embedAllVectors(List<String> texts) {
+        return embedAll(texts).stream().map(EmbeddingVector::fromList).toList();
+    }
+
+    /**
+     * Identifies the model that creates the embeddings. Embeddings with different identifiers are not comparable,
+     * caches use the identifier to keep them apart. The default is the name of the class.
+     * @return the identifier of the embedding model
+     */
+    default String identifier() {
+        return getClass().getName();
+    }
+
+    /**
+     * Tells whether the embeddings have a length of one. For unit vectors ranking by inner product gives the same
+     * order as ranking by euclidean distance, which stores use to save work.
+     * @return true if every embedding is normalised to unit length
+     */
+    default boolean producesNormalizedVectors() {
+        return false;
+    }
 }
@@ -0,0 +1,25 @@
+package org.rag4j.rag.embedding;
+
+/**
+ * Durable storage for embeddings, used by the {@link CachingEmbedder} as the tier behind its memory. The keys are the
+ * hexadecimal SHA-256 hashes the cache computes from the embedder identifier and the text.
+ * <p>A stored embedding that turns out to be damaged is treated as missing, the cache then embeds the text again. A
+ * store that cannot be read or written at all throws an {@link java.io.UncheckedIOException}, so a broken disk stops
+ * an indexing run instead of silently embedding everything again.</p>
+ */
+public interface EmbeddingStore {
+    /**
+     * @param key the key of the embedding
+     * @return the stored embedding, or null if there is none for the key or it is damaged
+     * @throws java.io.UncheckedIOException if the store cannot be read
+     */
+    EmbeddingVector get(String key);
+
+    /**
+     * Stores the embedding, replacing an earlier embedding with the same key.
+     * @param key the key of the embedding
+     * @param embedding the embedding to store
+     * @throws java.io.UncheckedIOException if the store cannot be written
+     */
+    void put(String key, EmbeddingVector embedding);
+}
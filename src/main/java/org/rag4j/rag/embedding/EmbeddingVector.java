@@ -0,0 +1,85 @@
+package org.rag4j.rag.embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An embedding backed by a primitive <code>float[]</code>. Components that work with primitive vectors pass this
+ * value around, so a vector is created once and never boxed into a <code>List&lt;Float&gt;</code>. The array is not
+ * copied when the vector is created or read, treat it as read-only.
+ */
+public final class EmbeddingVector {
+    private final float[] values;
+
+    private EmbeddingVector(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Wraps the array, without copying it.
+     */
+    public static EmbeddingVector of(float[] values) {
+        return new EmbeddingVector(values);
+    }
+
+    public static EmbeddingVector fromList(List<Float> values) {
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return new EmbeddingVector(array);
+    }
+
+    /**
+     * @return the backing array, not a copy
+     */
+    public float[] values() {
+        return this.values;
+    }
+
+    public int dimension() {
+        return this.values.length;
+    }
+
+    public float get(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Boxes the values, for components that still expect a <code>List&lt;Float&gt;</code>.
+     */
+    public List<Float> toList() {
+        List<Float> list = new ArrayList<>(this.values.length);
+        for (float value : this.values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Boxes the values, for clients such as Weaviate that expect a <code>Float[]</code>.
+     */
+    public Float[] toBoxedArray() {
+        Float[] array = new Float[this.values.length];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.values[i];
+        }
+        return array;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EmbeddingVector other && Arrays.equals(this.values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingVector" + Arrays.toString(this.values);
+    }
+}
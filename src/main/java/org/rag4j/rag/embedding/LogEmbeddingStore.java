@@ -0,0 +1,329 @@
+package org.rag4j.rag.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>Stores embeddings in one append-only file, meant for indexing runs that see mostly the same chunks again. Each
+ * record holds the 32 bytes of the key, the dimension, the floats of the embedding and a CRC32C of all of these.
+ * Opening the store scans the file once and keeps the position of every record in an index of primitive arrays,
+ * about 32 bytes per embedding; the embeddings themselves stay on disk and are read when asked for.</p>
+ * <p>A record that was not completely written after a crash, or that does not match its checksum, is cut off with
+ * everything after it when the store is opened. Storing a key again appends a new record that replaces the old one in
+ * the index, the file is never rewritten. The store holds a lock on the file, a second store on the same file fails
+ * to open. Call {@link #flush()} to force the records to disk and {@link #close()} when done.</p>
+ * <pre>
+ * try (LogEmbeddingStore store = new LogEmbeddingStore(Path.of("embeddings.log"))) {
+ *     Embedder embedder = new CachingEmbedder(new OnnxBertEmbedder(),
+ *             CachingEmbedderConfig.builder().embeddingStore(store).normalizeText(true).build());
+ *     new IndexingService(new InternalContentStore(embedder)).indexDocuments(reader, splitter);
+ * }
+ * </pre>
+ */
+public class LogEmbeddingStore implements EmbeddingStore, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogEmbeddingStore.class);
+    static final int MAGIC = 0x52344A4C;
+    static final int VERSION = 2;
+    static final int MAX_DIMENSION = 1 << 16;
+    private static final int HEADER_BYTES = 8;
+    private static final int KEY_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = KEY_BYTES + 4;
+    private static final int CHECKSUM_BYTES = 4;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final OffsetIndex index;
+    private long appendPosition;
+
+    public LogEmbeddingStore(Path file) {
+        this.file = file;
+        this.index = new OffsetIndex();
+        long start = System.nanoTime();
+        this.channel = open(file);
+        try {
+            lock();
+            if (this.channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(header, 0);
+                this.appendPosition = HEADER_BYTES;
+            } else {
+                this.appendPosition = scan();
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException("Cannot open the embedding store " + file, e);
+        }
+        LOGGER.info("Opened {} embeddings from {} in {} ms", this.index.size(), file,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public synchronized EmbeddingVector get(String key) {
+        byte[] keyBytes = HexFormat.of().parseHex(key);
+        long position = this.index.get(prefix(keyBytes));
+        if (position == OffsetIndex.ABSENT) {
+            return null;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            readFully(header, position);
+            byte[] storedKey = new byte[KEY_BYTES];
+            header.flip().get(storedKey);
+            if (!Arrays.equals(storedKey, keyBytes)) {
+                // Two keys that share their first eight bytes, the later one is in the index
+                return null;
+            }
+            int dimension = header.getInt();
+            ByteBuffer values = ByteBuffer.allocate(4 * dimension + CHECKSUM_BYTES);
+            readFully(values, position + RECORD_HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(header.flip());
+            crc.update(values.flip().limit(4 * dimension));
+            if ((int) crc.getValue() != values.limit(values.capacity()).getInt(4 * dimension)) {
+                LOGGER.warn("The embedding {} in {} does not match its checksum, it is embedded again", key, this.file);
+                return null;
+            }
+            float[] vector = new float[dimension];
+            values.position(0).asFloatBuffer().get(vector);
+            return EmbeddingVector.of(vector);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read embedding " + key + " from " + this.file, e);
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, EmbeddingVector embedding) {
+        byte[] keyBytes = HexFormat.of().parseHex(key);
+        float[] values = embedding.values();
+        if (values.length < 1 || values.length > MAX_DIMENSION) {
+            throw new IllegalArgumentException("The dimension of an embedding must be between 1 and " + MAX_DIMENSION
+                    + ", not " + values.length);
+        }
+        int checksumPosition = RECORD_HEADER_BYTES + 4 * values.length;
+        ByteBuffer record = ByteBuffer.allocate(checksumPosition + CHECKSUM_BYTES);
+        record.put(keyBytes).putInt(values.length);
+        record.asFloatBuffer().put(values);
+        CRC32C crc = new CRC32C();
+        crc.update(record.position(0).limit(checksumPosition));
+        record.limit(record.capacity()).putInt(checksumPosition, (int) crc.getValue());
+        record.position(0);
+        try {
+            writeFully(record, this.appendPosition);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write embedding " + key + " to " + this.file, e);
+        }
+        this.index.put(prefix(keyBytes), this.appendPosition);
+        this.appendPosition += record.capacity();
+    }
+
+    /**
+     * @return the number of distinct keys in the store
+     */
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Forces the written records to disk.
+     */
+    public synchronized void flush() {
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot flush the embedding store " + this.file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try (FileChannel ignored = this.channel) {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close the embedding store " + this.file, e);
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the file, two stores appending to the same file would corrupt it.
+     */
+    private void lock() throws IOException {
+        try {
+            if (this.channel.tryLock() != null) {
+                return;
+            }
+        } catch (OverlappingFileLockException e) {
+            // The lock is held by another store in this JVM
+        }
+        closeQuietly();
+        throw new IllegalStateException("The embedding store " + this.file + " is used by another store");
+    }
+
+    private static FileChannel open(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the embedding store " + file, e);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot close the embedding store {}", this.file, e);
+        }
+    }
+
+    /**
+     * Reads all records into the index. The first record that is incomplete or does not match its checksum is cut off
+     * with everything after it.
+     * @return the position after the last valid record
+     */
+    private long scan() throws IOException {
+        long size = this.channel.size();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(this.channel.position(0)), 1 << 16));
+        if (size < HEADER_BYTES || in.readInt() != MAGIC) {
+            throw new IOException("The file is not an embedding store");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported embedding store version " + version);
+        }
+
+        long position = HEADER_BYTES;
+        byte[] record = new byte[RECORD_HEADER_BYTES + 4 * MAX_DIMENSION];
+        CRC32C crc = new CRC32C();
+        while (position + RECORD_HEADER_BYTES <= size) {
+            in.readFully(record, 0, RECORD_HEADER_BYTES);
+            int dimension = ByteBuffer.wrap(record, KEY_BYTES, 4).getInt();
+            int length = RECORD_HEADER_BYTES + 4 * dimension;
+            long end = position + length + CHECKSUM_BYTES;
+            if (dimension <= 0 || dimension > MAX_DIMENSION || end > size) {
+                break;
+            }
+            int checksum;
+            try {
+                in.readFully(record, RECORD_HEADER_BYTES, 4 * dimension);
+                checksum = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(record, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            this.index.put(prefix(record), position);
+            position = end;
+        }
+        if (position < size) {
+            LOGGER.warn("Cutting off {} bytes after the last valid record of {}", size - position, this.file);
+            this.channel.truncate(position);
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + this.file);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static long prefix(byte[] key) {
+        return ByteBuffer.wrap(key, 0, 8).getLong();
+    }
+
+    /**
+     * Open addressing map from the first eight bytes of a key to the position of its record. Positions start after the
+     * file header, so 0 marks an empty slot.
+     */
+    private static final class OffsetIndex {
+        static final long ABSENT = -1L;
+
+        private long[] keys = new long[1024];
+        private long[] positions = new long[1024];
+        private int size;
+
+        long get(long key) {
+            int mask = this.keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (this.positions[slot] == 0) {
+                    return ABSENT;
+                }
+                if (this.keys[slot] == key) {
+                    return this.positions[slot];
+                }
+            }
+        }
+
+        void put(long key, long position) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                grow();
+            }
+            int mask = this.keys.length - 1;
+            int slot = slot(key, mask);
+            while (this.positions[slot] != 0 && this.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (this.positions[slot] == 0) {
+                this.size++;
+            }
+            this.keys[slot] = key;
+            this.positions[slot] = position;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        private void grow() {
+            long[] oldKeys = this.keys;
+            long[] oldPositions = this.positions;
+            this.keys = new long[2 * oldKeys.length];
+            this.positions = new long[2 * oldPositions.length];
+            int mask = this.keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldPositions[i] != 0) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (this.positions[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    this.keys[slot] = oldKeys[i];
+                    this.positions[slot] = oldPositions[i];
+                }
+            }
+        }
+
+        /**
+         * The keys are the start of a SHA-256 hash, their low bits are already uniformly distributed.
+         */
+        private static int slot(long key, int mask) {
+            return (int) key & mask;
+        }
+    }
+}
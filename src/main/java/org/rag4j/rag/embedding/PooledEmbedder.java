@@ -0,0 +1,212 @@
+package org.rag4j.rag.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Embedder that shares a pool of embedders between many calling threads. Every text is put on a queue, a worker per
+ * pooled embedder takes the texts from the queue and embeds them. Texts that arrive within the batch window of the
+ * first text are embedded together in one call, so concurrent single-text requests are combined into one batch.
+ * <p>For the local ONNX model, create every {@link org.rag4j.rag.embedding.local.OnnxBertEmbedder} with its own
+ * session and divide the cores over the sessions with the intra-op threads of the encoder configuration:</p>
+ * <pre>
+ * OnnxBertBiEncoderConfig encoderConfig = OnnxBertBiEncoderConfig.builder().intraOpThreads(2).build();
+ * PooledEmbedder embedder = new PooledEmbedder(() -> new OnnxBertEmbedder(encoderConfig),
+ *         PooledEmbedderConfig.builder().poolSize(4).build());
+ * </pre>
+ * Call {@link #close()} to stop the workers and to close the pooled embedders.
+ */
+public class PooledEmbedder implements Embedder, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledEmbedder.class);
+
+    private final PooledEmbedderConfig config;
+    private final List<Embedder> embedders;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> workers;
+    private volatile boolean closed;
+
+    public PooledEmbedder(Supplier<? extends Embedder> embedderFactory) {
+        this(embedderFactory, PooledEmbedderConfig.defaults());
+    }
+
+    public PooledEmbedder(Supplier<? extends Embedder> embedderFactory, PooledEmbedderConfig config) {
+        if (config.getPoolSize() < 1 || config.getMaxBatchSize() < 1) {
+            throw new IllegalArgumentException("The pool size and the maximum batch size must be at least 1");
+        }
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.embedders = new ArrayList<>(config.getPoolSize());
+        this.workers = new ArrayList<>(config.getPoolSize());
+        try {
+            for (int i = 0; i < config.getPoolSize(); i++) {
+                Embedder embedder = embedderFactory.get();
+                this.embedders.add(embedder);
+                Thread worker = new Thread(() -> work(embedder), "rag4j-embedder-" + i);
+                worker.setDaemon(true);
+                this.workers.add(worker);
+            }
+        } catch (Throwable e) {
+            // The workers have not started yet, only the embedders created so far need to be closed
+            closeEmbedders();
+            throw e;
+        }
+        this.workers.forEach(Thread::start);
+    }
+
+    @Override
+    public List<Float> embed(String text) {
+        return embedVector(text).toList();
+    }
+
+    @Override
+    public List<List<Float>> embedAll(List<String> texts) {
+        return embedAllVectors(texts).stream().map(EmbeddingVector::toList).toList();
+    }
+
+    @Override
+    public EmbeddingVector embedVector(String text) {
+        return join(submit(text));
+    }
+
+    @Override
+    public List<EmbeddingVector> embedAllVectors(List<String> texts) {
+        List<CompletableFuture<EmbeddingVector>> futures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            futures.add(submit(text));
+        }
+        List<EmbeddingVector> embeddings = new ArrayList<>(texts.size());
+        for (CompletableFuture<EmbeddingVector> future : futures) {
+            embeddings.add(join(future));
+        }
+        return embeddings;
+    }
+
+    @Override
+    public String identifier() {
+        return this.embedders.getFirst().identifier();
+    }
+
+    @Override
+    public boolean producesNormalizedVectors() {
+        return this.embedders.getFirst().producesNormalizedVectors();
+    }
+
+    /**
+     * Stops the workers and closes the pooled embedders that are {@link AutoCloseable}, which releases the ONNX
+     * sessions of local models. Texts still waiting in the queue fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.workers.forEach(Thread::interrupt);
+        for (Thread worker : this.workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Request> pending = new ArrayList<>();
+        this.queue.drainTo(pending);
+        pending.forEach(request -> request.result.completeExceptionally(
+                new IllegalStateException("The embedder is closed")));
+        closeEmbedders();
+    }
+
+    private void closeEmbedders() {
+        this.embedders.stream().distinct().forEach(embedder -> {
+            if (embedder instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    LOGGER.warn("Closing the embedder {} failed", embedder.identifier(), e);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<EmbeddingVector> submit(String text) {
+        if (this.closed) {
+            throw new IllegalStateException("The embedder is closed");
+        }
+        Request request = new Request(text, new CompletableFuture<>());
+        try {
+            this.queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the queue", e);
+        }
+        // close() may have drained the queue between the check above and the put, nobody takes the text anymore
+        if (this.closed && this.queue.remove(request)) {
+            request.result.completeExceptionally(new IllegalStateException("The embedder is closed"));
+        }
+        return request.result;
+    }
+
+    private void work(Embedder embedder) {
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(this.config.getBatchWindowMillis());
+        List<Request> batch = new ArrayList<>(this.config.getMaxBatchSize());
+        while (!this.closed) {
+            try {
+                batch.add(this.queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < this.config.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0
+                            ? this.queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : this.queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Texts taken before the interrupt are still embedded, close() fails the ones left in the queue
+                if (batch.isEmpty()) {
+                    return;
+                }
+            }
+            embedBatch(embedder, batch);
+            batch.clear();
+        }
+    }
+
+    private static void embedBatch(Embedder embedder, List<Request> batch) {
+        try {
+            List<EmbeddingVector> embeddings = embedder.embedAllVectors(batch.stream().map(Request::text).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(embeddings.get(i));
+            }
+        } catch (Throwable e) {
+            LOGGER.warn("Embedding a batch of {} texts failed", batch.size(), e);
+            batch.forEach(request -> request.result.completeExceptionally(e));
+        }
+    }
+
+    private static EmbeddingVector join(CompletableFuture<EmbeddingVector> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Request(String text, CompletableFuture<EmbeddingVector> result) {
+    }
+}
@@ -0,0 +1,33 @@
+package org.rag4j.rag.embedding;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configuration of the {@link PooledEmbedder}.
+ * <ul>
+ *     <li><code>poolSize</code> - the number of embedders in the pool, each one gets its own worker thread.</li>
+ *     <li><code>maxBatchSize</code> - the maximum number of texts a worker passes to its embedder in one call.</li>
+ *     <li><code>batchWindowMillis</code> - how long a worker waits for more texts after it took the first one from the
+ *     queue. A longer window gives larger batches under load, and adds up to the window to the latency of a
+ *     single request. With 0 a worker only takes what is already waiting.</li>
+ *     <li><code>queueCapacity</code> - the number of texts that can wait for a worker. Callers block when the queue is
+ *     full, which keeps the waiting time bounded under overload.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class PooledEmbedderConfig {
+    @Builder.Default
+    private int poolSize = 2;
+    @Builder.Default
+    private int maxBatchSize = 32;
+    @Builder.Default
+    private long batchWindowMillis = 2;
+    @Builder.Default
+    private int queueCapacity = 1024;
+
+    public static PooledEmbedderConfig defaults() {
+        return PooledEmbedderConfig.builder().build();
+    }
+}
@@ -0,0 +1,111 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.onnxruntime.OnnxTensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reusable model inputs and output of one run at a time. The input ids, attention mask and token type ids are direct
+ * buffers in native byte order, which ONNX Runtime reads without copying them. The token type ids are always 0 for a
+ * single sentence, a freshly allocated direct buffer already holds zeros, so that buffer is never written. The buffers
+ * are sized for a full batch of the longest sequences and only grow when a larger batch comes along. The output buffer
+ * receives the token embeddings of a run, it is allocated on first use and grows with the largest batch seen, up to
+ * the maximum number of output elements.
+ */
+final class InputWorkspace {
+    private final Map<String, OnnxTensor> inputs = new HashMap<>(4);
+    private LongBuffer inputIds;
+    private LongBuffer attentionMask;
+    private LongBuffer tokenTypeIds;
+    private final int maxOutputElements;
+    private FloatBuffer output;
+
+    InputWorkspace(int capacity, int maxOutputElements) {
+        this.maxOutputElements = maxOutputElements;
+        allocate(capacity);
+    }
+
+    /**
+     * Makes sure the buffers hold at least the number of elements.
+     */
+    void ensureCapacity(int elements) {
+        if (elements > this.inputIds.capacity()) {
+            allocate(Math.max(elements, 2 * this.inputIds.capacity()));
+        }
+    }
+
+    int capacity() {
+        return this.inputIds.capacity();
+    }
+
+    /**
+     * @return the input ids buffer with room for exactly the number of elements
+     */
+    LongBuffer inputIds(int elements) {
+        return this.inputIds.clear().limit(elements);
+    }
+
+    /**
+     * @return the attention mask buffer with room for exactly the number of elements
+     */
+    LongBuffer attentionMask(int elements) {
+        return this.attentionMask.clear().limit(elements);
+    }
+
+    /**
+     * @return the token type ids, all 0, for exactly the number of elements
+     */
+    LongBuffer tokenTypeIds(int elements) {
+        return this.tokenTypeIds.clear().limit(elements);
+    }
+
+    /**
+     * @return true if the output buffer may hold the number of elements
+     */
+    boolean fitsOutput(int elements) {
+        return elements <= this.maxOutputElements;
+    }
+
+    /**
+     * @return the output buffer with room for exactly the number of elements
+     */
+    FloatBuffer output(int elements) {
+        if (!fitsOutput(elements)) {
+            throw new IllegalArgumentException("The output of " + elements + " elements is larger than the maximum of "
+                    + this.maxOutputElements);
+        }
+        if (this.output == null || elements > this.output.capacity()) {
+            int capacity = this.output == null
+                    ? elements
+                    : (int) Math.min(this.maxOutputElements, Math.max(elements, 2L * this.output.capacity()));
+            this.output = ByteBuffer.allocateDirect(Float.BYTES * capacity).order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+        }
+        return this.output.clear().limit(elements);
+    }
+
+    /**
+     * @return the map passed to the session, filled with the tensors of this run
+     */
+    Map<String, OnnxTensor> inputs(OnnxTensor inputIds, OnnxTensor attentionMask, OnnxTensor tokenTypeIds) {
+        this.inputs.put("input_ids", inputIds);
+        this.inputs.put("token_type_ids", tokenTypeIds);
+        this.inputs.put("attention_mask", attentionMask);
+        return this.inputs;
+    }
+
+    private void allocate(int capacity) {
+        this.inputIds = allocateLongs(capacity);
+        this.attentionMask = allocateLongs(capacity);
+        this.tokenTypeIds = allocateLongs(capacity);
+    }
+
+    private static LongBuffer allocateLongs(int capacity) {
+        return ByteBuffer.allocateDirect(Long.BYTES * capacity).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+}
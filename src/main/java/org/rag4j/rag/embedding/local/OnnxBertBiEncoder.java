@@ -1,157 +1,657 @@
 package org.rag4j.rag.embedding.local;
 
-import ai.djl.modality.nlp.DefaultVocabulary;
-import ai.djl.modality.nlp.Vocabulary;
-import ai.djl.modality.nlp.bert.BertFullTokenizer;
-import ai.djl.modality.nlp.bert.BertTokenizer;
 import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtEnvironment.ThreadingOptions;
 import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtLoggingLevel;
 import ai.onnxruntime.OrtSession;
 import ai.onnxruntime.OrtSession.Result;
+import ai.onnxruntime.OrtSession.SessionOptions;
+import ai.onnxruntime.TensorInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 
 import static ai.onnxruntime.OnnxTensor.createTensor;
 import static java.lang.Math.min;
-import static java.nio.LongBuffer.wrap;
-import static java.util.stream.Collectors.toList;
 
 /**
  * This class is copied from the great Language4J project. We took only what we needed. If you need more, please check
  * out the original project: <a href="https://langchain.4j.org/">Langchain4j</a>
  */
-public class OnnxBertBiEncoder {
+public class OnnxBertBiEncoder implements AutoCloseable {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OnnxBertBiEncoder.class);
+    private static final String MODEL_RESOURCE = "/onnx/all-minilm-l6-v2-q.onnx";
     private static final String CLS = "[CLS]";
     private static final String SEP = "[SEP]";
+    private static final String PAD = "[PAD]";
+    private static final String TOKEN_EMBEDDINGS = "last_hidden_state";
+    private static final String SENTENCE_EMBEDDING = "sentence_embedding";
     private static final int MAX_SEQUENCE_LENGTH = 510; // 512 - 2 (special tokens [CLS] and [SEP])
+    private static final Object GLOBAL_ENVIRONMENT_LOCK = new Object();
+    private static OrtEnvironment globalEnvironment;
 
     private final OrtEnvironment environment;
     private final OrtSession session;
-    private final BertTokenizer tokenizer;
-    private final Vocabulary vocabulary;
+    private final WordPieceTokenizer tokenizer;
+    private final OnnxBertBiEncoderConfig config;
+    private final String modelName;
+    private final long clsId;
+    private final long sepId;
+    private final long padId;
+    private final BlockingQueue<InputWorkspace> workspaces;
+    private final int workspaceCapacity;
+    private final int maxPinnedOutputElements;
+    private final String outputName;
+    private final boolean pooledOutput;
+    private final int hiddenSize;
 
     public OnnxBertBiEncoder() {
+        this(OnnxBertBiEncoderConfig.defaults());
+    }
+
+    public OnnxBertBiEncoder(OnnxBertBiEncoderConfig config) {
+        if (config.getPartitionOverlap() < 0 || config.getPartitionOverlap() >= MAX_SEQUENCE_LENGTH) {
+            throw new IllegalArgumentException("The partition overlap must be at least 0 and less than "
+                    + MAX_SEQUENCE_LENGTH + ", not " + config.getPartitionOverlap());
+        }
+        this.config = config;
+        this.modelName = modelName(config);
         try {
-            InputStream modelInputStream = OnnxBertBiEncoder.class.getResourceAsStream("/onnx/all-minilm-l6-v2-q.onnx");
-            this.environment = OrtEnvironment.getEnvironment();
-            this.session = environment.createSession(loadModel(modelInputStream));
-            this.vocabulary = createVocabularyFrom(getClass().getResource("/onnx/bert-vocabulary-en.txt"));
-            this.tokenizer = new BertFullTokenizer(vocabulary, true);
+            this.environment = createEnvironment(config);
+            long start = System.nanoTime();
+            this.session = createSession(environment, config);
+            LOGGER.info("Created the ONNX session in {} ms", (System.nanoTime() - start) / 1_000_000);
+            String pooledOutputName = pooledOutputName(session, config);
+            this.pooledOutput = pooledOutputName != null;
+            this.outputName = this.pooledOutput ? pooledOutputName : tokenEmbeddingsOutput(session);
+            this.hiddenSize = hiddenSize(session, outputName, this.pooledOutput ? 2 : 3);
+            if (this.pooledOutput) {
+                LOGGER.info("The model pools its output {}, the pooling strategy {} is not used", outputName,
+                        config.getPoolingStrategy());
+            }
+            this.tokenizer = WordPieceTokenizer.fromResource("/onnx/bert-vocabulary-en.txt");
+            this.clsId = tokenizer.idOf(CLS);
+            this.sepId = tokenizer.idOf(SEP);
+            this.padId = tokenizer.idOf(PAD);
+            this.workspaceCapacity = Math.max(1, config.getBatchSize()) * (MAX_SEQUENCE_LENGTH + 2);
+            this.maxPinnedOutputElements = Math.max(0, config.getMaxPinnedOutputBytes()) / Float.BYTES;
+            // More workspaces than cores would not run at the same time, runs beyond that use a workspace once
+            this.workspaces = new ArrayBlockingQueue<>(Math.max(1, Runtime.getRuntime().availableProcessors()));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public float[] embed(String text) {
+    /**
+     * @return the output with the embedding of every token, named last_hidden_state in exported BERT models
+     */
+    private static String tokenEmbeddingsOutput(OrtSession session) {
+        Set<String> outputNames = session.getOutputNames();
+        return outputNames.contains(TOKEN_EMBEDDINGS) ? TOKEN_EMBEDDINGS : outputNames.iterator().next();
+    }
 
-        List<String> wordPieces = tokenizer.tokenize(text);
-        List<List<String>> partitions = partition(wordPieces, MAX_SEQUENCE_LENGTH);
+    /**
+     * @return the configured output with one embedding per sequence, or the sentence_embedding output of models
+     * exported with their pooling; null if the model has no pooled output
+     */
+    private static String pooledOutputName(OrtSession session, OnnxBertBiEncoderConfig config) {
+        Set<String> outputNames = session.getOutputNames();
+        String name = config.getPooledOutputName();
+        if (name == null) {
+            return outputNames.contains(SENTENCE_EMBEDDING) ? SENTENCE_EMBEDDING : null;
+        }
+        if (!outputNames.contains(name)) {
+            throw new IllegalArgumentException("The model has no output " + name + ", it has " + outputNames);
+        }
+        return name;
+    }
+
+    /**
+     * @return the size of the embeddings in the output, or -1 if the model does not declare a fixed size
+     */
+    private static int hiddenSize(OrtSession session, String outputName, int rank) throws OrtException {
+        if (session.getOutputInfo().get(outputName).getInfo() instanceof TensorInfo info
+                && info.getShape().length == rank) {
+            return (int) info.getShape()[rank - 1];
+        }
+        return -1;
+    }
 
-        List<float[]> embeddings = new ArrayList<>();
-        for (List<String> partition : partitions) {
-            long[] tokens = toTokens(partition);
-            try (Result result = encode(tokens)) {
-                float[] embedding = toEmbedding(result);
-                embeddings.add(embedding);
-            } catch (OrtException e) {
-                throw new RuntimeException(e);
+    /**
+     * ONNX Runtime accepts threading options only for the first environment in the JVM. The environment with the
+     * global thread pool is therefore created once and shared by every encoder that asks for it, the thread counts of
+     * the first of these encoders apply.
+     */
+    private static OrtEnvironment createEnvironment(OnnxBertBiEncoderConfig config) throws OrtException {
+        if (!config.isGlobalThreadPool()) {
+            return OrtEnvironment.getEnvironment();
+        }
+        synchronized (GLOBAL_ENVIRONMENT_LOCK) {
+            if (globalEnvironment != null) {
+                return globalEnvironment;
+            }
+            try (ThreadingOptions threadingOptions = new ThreadingOptions()) {
+                threadingOptions.setGlobalIntraOpNumThreads(config.getIntraOpThreads());
+                threadingOptions.setGlobalInterOpNumThreads(config.getInterOpThreads());
+                globalEnvironment = OrtEnvironment.getEnvironment(
+                        OrtLoggingLevel.ORT_LOGGING_LEVEL_WARNING, "rag4j", threadingOptions);
+                return globalEnvironment;
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("The global thread pool must be configured before the first ONNX " +
+                        "Runtime environment in the JVM is created", e);
             }
         }
+    }
 
-        List<Integer> weights = partitions.stream()
-                .map(List::size)
-                .collect(toList());
+    /**
+     * Creates the session from the optimised model when it was written for the current model and optimisation level.
+     * Next to the optimised model a file with the extension <code>.source</code> records the SHA-256 of the model it
+     * was created from and the optimisation level, any other optimised model is created again.
+     */
+    private static OrtSession createSession(OrtEnvironment environment, OnnxBertBiEncoderConfig config)
+            throws OrtException {
+        Path modelPath = config.getModelPath() != null
+                ? config.getModelPath()
+                : extractModel(MODEL_RESOURCE, config.getModelCacheDirectory());
+        try (SessionOptions options = createSessionOptions(config)) {
+            Path optimizedModelPath = config.getOptimizedModelPath();
+            if (optimizedModelPath == null) {
+                return environment.createSession(modelPath.toString(), options);
+            }
+            Path sourceFile = optimizedModelPath.resolveSibling(optimizedModelPath.getFileName() + ".source");
+            String source = "sha256=" + sha256(modelPath) + "\noptimizationLevel=" + config.getOptimizationLevel() + "\n";
+            if (Files.exists(optimizedModelPath) && Files.exists(sourceFile)
+                    && source.equals(Files.readString(sourceFile))) {
+                return environment.createSession(optimizedModelPath.toString(), options);
+            }
+            LOGGER.info("Writing the optimised model for {} to {}", modelPath, optimizedModelPath);
+            options.setOptimizedModelFilePath(optimizedModelPath.toString());
+            OrtSession session = environment.createSession(modelPath.toString(), options);
+            Files.writeString(sourceFile, source);
+            return session;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot check the optimised model " + config.getOptimizedModelPath(), e);
+        }
+    }
 
-        return normalize(weightedAverage(embeddings, weights));
+    /**
+     * @return the SHA-256 of the file as a hexadecimal string
+     */
+    static String sha256(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return sha256(inputStream);
+        }
     }
 
-    private static List<List<String>> partition(List<String> wordPieces, int partitionSize) {
-        List<List<String>> partitions = new ArrayList<>();
-        for (int from = 0; from < wordPieces.size(); from += partitionSize) {
-            int to = min(wordPieces.size(), from + partitionSize);
-            List<String> partition = wordPieces.subList(from, to);
-            partitions.add(partition);
+    private static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform supports SHA-256", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+            digest.update(buffer, 0, read);
         }
-        return partitions;
+        return HexFormat.of().formatHex(digest.digest());
     }
 
-    private long[] toTokens(List<String> wordPieces) {
-        long[] tokens = new long[wordPieces.size() + 2];
+    /**
+     * Copies the model from the classpath to the cache directory, unless an earlier run already did. Next to the
+     * extracted file a file with the extension <code>.source</code> records the version of the resource, the size of
+     * the extracted file and its CRC32C. The version of a resource is the size and modification time of the jar or
+     * file it is in, which are known without reading the resource. When the version and the size match that record,
+     * the extracted file is used without reading it. Otherwise the CRC32C of the resource is compared with the record,
+     * or with the CRC32C of the extracted file when the record does not match, and a model of another version of the
+     * resource or a damaged file is extracted again. The model is written to a temporary file first and moved in place,
+     * so a concurrent or aborted extraction never leaves a partial model behind.
+     * @return the path of the extracted model
+     */
+    static Path extractModel(String resource, Path cacheDirectory) {
+        URL url = OnnxBertBiEncoder.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalStateException("The model " + resource + " is not on the classpath, provide a model path");
+        }
+        Path target = cacheDirectory.resolve(Path.of(resource).getFileName().toString());
+        Path sourceFile = target.resolveSibling(target.getFileName() + ".source");
+        try {
+            String version = resourceVersion(url);
+            Properties source = new Properties();
+            if (Files.isRegularFile(target) && Files.isRegularFile(sourceFile)) {
+                try (InputStream inputStream = Files.newInputStream(sourceFile)) {
+                    source.load(inputStream);
+                }
+                if (version != null && version.equals(source.getProperty("version"))
+                        && Long.toString(Files.size(target)).equals(source.getProperty("size"))) {
+                    return target;
+                }
+            }
+            if (Files.isRegularFile(target)) {
+                long checksum;
+                try (InputStream inputStream = url.openStream()) {
+                    checksum = crc32c(inputStream);
+                }
+                // Only the version of the resource changed, the record still vouches for the extracted file
+                boolean recorded = Long.toHexString(checksum).equals(source.getProperty("crc32c"))
+                        && Long.toString(Files.size(target)).equals(source.getProperty("size"));
+                if (recorded || crc32c(target) == checksum) {
+                    writeSource(sourceFile, version, Files.size(target), checksum);
+                    return target;
+                }
+                LOGGER.warn("The cached model {} does not match {}, extracting it again", target, resource);
+            }
 
-        int i = 0;
-        tokens[i++] = vocabulary.getIndex(CLS);
-        for (String wordPiece : wordPieces) {
-            tokens[i++] = vocabulary.getIndex(wordPiece);
+            createPrivateDirectories(cacheDirectory);
+            Path temporary = Files.createTempFile(cacheDirectory, "model", ".tmp");
+            try (CheckedInputStream inputStream = new CheckedInputStream(url.openStream(), new CRC32C())) {
+                Files.copy(inputStream, temporary, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                writeSource(sourceFile, version, Files.size(target), inputStream.getChecksum().getValue());
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            LOGGER.info("Extracted the model {} to {}", resource, target);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot extract the model " + resource + " to " + cacheDirectory, e);
         }
-        tokens[i] = vocabulary.getIndex(SEP);
+    }
 
-        return tokens;
+    /**
+     * @return the size and modification time of the jar or file that holds the resource, null if it is not in a file
+     */
+    private static String resourceVersion(URL url) {
+        try {
+            String location = url.toString();
+            if ("jar".equals(url.getProtocol())) {
+                location = location.substring("jar:".length(), location.indexOf("!/"));
+            }
+            URI uri = new URI(location);
+            if (!"file".equals(uri.getScheme())) {
+                return null;
+            }
+            Path file = Path.of(uri);
+            return "size " + Files.size(file) + ", modified " + Files.getLastModifiedTime(file).toMillis();
+        } catch (URISyntaxException | IllegalArgumentException | IndexOutOfBoundsException | IOException e) {
+            return null;
+        }
     }
 
-    private Result encode(long[] tokens) throws OrtException {
+    private static void writeSource(Path sourceFile, String version, long size, long checksum) throws IOException {
+        String record = "size=" + size + "\ncrc32c=" + Long.toHexString(checksum) + "\n";
+        Files.writeString(sourceFile, version == null ? record : "version=" + version + "\n" + record);
+    }
 
-        long[] attentionMasks = new long[tokens.length];
-        for (int i = 0; i < tokens.length; i++) {
-            attentionMasks[i] = 1L;
+    private static long crc32c(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return crc32c(inputStream);
         }
+    }
 
-        long[] tokenTypeIds = new long[tokens.length];
-        for (int i = 0; i < tokens.length; i++) {
-            tokenTypeIds[i] = 0L;
+    private static long crc32c(InputStream inputStream) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+            crc.update(buffer, 0, read);
         }
+        return crc.getValue();
+    }
 
-        long[] shape = {1, tokens.length};
+    /**
+     * Creates the directory, readable and writable only by the current user on file systems with POSIX permissions.
+     */
+    private static void createPrivateDirectories(Path directory) throws IOException {
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
 
-        try (
-                OnnxTensor tokensTensor = createTensor(environment, wrap(tokens), shape);
-                OnnxTensor attentionMasksTensor = createTensor(environment, wrap(attentionMasks), shape);
-                OnnxTensor tokenTypeIdsTensor = createTensor(environment, wrap(tokenTypeIds), shape)
-        ) {
-            Map<String, OnnxTensor> inputs = new HashMap<>();
-            inputs.put("input_ids", tokensTensor);
-            inputs.put("token_type_ids", tokenTypeIdsTensor);
-            inputs.put("attention_mask", attentionMasksTensor);
+    /**
+     * Translates the configuration into options for the ONNX Runtime session.
+     */
+    static SessionOptions createSessionOptions(OnnxBertBiEncoderConfig config) throws OrtException {
+        SessionOptions options = new SessionOptions();
+        options.setOptimizationLevel(config.getOptimizationLevel());
+        options.setCPUArenaAllocator(config.isMemoryArena());
+        options.setMemoryPatternOptimization(config.isMemoryPattern());
+        if (config.isGlobalThreadPool()) {
+            options.disablePerSessionThreads();
+        } else {
+            options.setIntraOpNumThreads(config.getIntraOpThreads());
+            options.setInterOpNumThreads(config.getInterOpThreads());
+        }
+        return options;
+    }
+
+    /**
+     * @return the file name of the model without its extension
+     */
+    public String modelName() {
+        return this.modelName;
+    }
+
+    /**
+     * @return the model name followed by the settings that change the embeddings, when they differ from the defaults
+     */
+    public String identifier() {
+        StringBuilder identifier = new StringBuilder(this.modelName);
+        if (!this.pooledOutput && this.config.getPoolingStrategy() != PoolingStrategy.MEAN) {
+            identifier.append('/').append(this.config.getPoolingStrategy().name().toLowerCase());
+        }
+        if (this.config.getPartitionOverlap() > 0) {
+            identifier.append("/overlap-").append(this.config.getPartitionOverlap());
+        }
+        return identifier.toString();
+    }
+
+    private static String modelName(OnnxBertBiEncoderConfig config) {
+        Path model = config.getModelPath() != null ? config.getModelPath() : Path.of(MODEL_RESOURCE);
+        String fileName = model.getFileName().toString();
+        return fileName.endsWith(".onnx") ? fileName.substring(0, fileName.length() - ".onnx".length()) : fileName;
+    }
+
+    /**
+     * Releases the native memory of the ONNX session, the encoder cannot embed texts anymore. The environment is shared
+     * by all encoders and stays open.
+     */
+    @Override
+    public void close() {
+        this.workspaces.clear();
+        try {
+            this.session.close();
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public float[] embed(String text) {
+        return embedAll(List.of(text)).getFirst();
+    }
 
-            return session.run(inputs);
+    /**
+     * Creates the embeddings for multiple texts, in the same order as the texts. Every text is split into partitions
+     * of at most 510 word pieces, see {@link #planPartitions(int, int, int)}. The token sequences of all partitions are
+     * padded into batches and passed to the model together, the embedding of a text is the average of its partitions
+     * weighted by their length.
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (List<Partition> partitions : encodePartitions(texts)) {
+            List<float[]> partitionEmbeddings = new ArrayList<>(partitions.size());
+            List<Integer> weights = new ArrayList<>(partitions.size());
+            for (Partition partition : partitions) {
+                partitionEmbeddings.add(partition.embedding());
+                weights.add(partition.weight());
+            }
+            embeddings.add(normalize(weightedAverage(partitionEmbeddings, weights)));
         }
+        return embeddings;
     }
 
-    private float[] toEmbedding(Result result) throws OrtException {
-        float[][] vectors = ((float[][][]) result.get(0).getValue())[0];
-        return pool(vectors);
+    /**
+     * Creates one embedding per partition of the text instead of their average, for instance to store a long
+     * transcript as multiple vectors. All partitions go to the model in padded batches, a text of up to
+     * <code>batchSize</code> partitions in one run.
+     * @return the normalised embeddings of the partitions, in the order of the text
+     */
+    public List<float[]> embedPartitions(String text) {
+        return embedAllPartitions(List.of(text)).getFirst();
     }
 
-    private float[] pool(float[][] vectors) {
-        return meanPool(vectors);
+    /**
+     * Creates the embeddings of the partitions of multiple texts, see {@link #embedPartitions(String)}.
+     * @return per text the normalised embeddings of its partitions
+     */
+    public List<List<float[]>> embedAllPartitions(List<String> texts) {
+        return encodePartitions(texts).stream()
+                .map(partitions -> partitions.stream().map(partition -> normalize(partition.embedding())).toList())
+                .toList();
     }
 
-    private static float[] meanPool(float[][] vectors) {
+    /**
+     * Splits a text of <code>wordPieces</code> word pieces into partitions of at most <code>maxLength</code> word
+     * pieces. Each partition starts <code>maxLength - overlap</code> word pieces after the one before it, the last
+     * partition ends at the end of the text. An empty text has one empty partition, it is encoded as just the special
+     * tokens.
+     * @return per partition the index of its first word piece and the index after its last one
+     */
+    static List<int[]> planPartitions(int wordPieces, int maxLength, int overlap) {
+        int stride = maxLength - overlap;
+        List<int[]> partitions = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int to = min(wordPieces, from + maxLength);
+            partitions.add(new int[]{from, to});
+            if (to == wordPieces) {
+                return partitions;
+            }
+            from += stride;
+        }
+    }
 
-        int numVectors = vectors.length;
-        int vectorLength = vectors[0].length;
+    /**
+     * @return per text the pooled embeddings of its partitions, not normalised
+     */
+    private List<List<Partition>> encodePartitions(List<String> texts) {
+        List<Sequence> sequences = new ArrayList<>();
+        int[] partitionCounts = new int[texts.size()];
+        for (int i = 0; i < texts.size(); i++) {
+            int[] wordPieces = tokenizer.tokenize(texts.get(i));
+            List<int[]> partitions =
+                    planPartitions(wordPieces.length, MAX_SEQUENCE_LENGTH, this.config.getPartitionOverlap());
+            for (int[] partition : partitions) {
+                sequences.add(new Sequence(wordPieces, partition[0], partition[1]));
+            }
+            partitionCounts[i] = partitions.size();
+        }
 
-        float[] averagedVector = new float[vectorLength];
+        int[] lengths = sequences.stream().mapToInt(Sequence::length).toArray();
+        float[][] sequenceEmbeddings = new float[sequences.size()][];
+        for (int[] batch : planBatches(lengths, this.config.getBatchSize(), this.config.isSortByLength())) {
+            List<Sequence> batchSequences = new ArrayList<>(batch.length);
+            for (int index : batch) {
+                batchSequences.add(sequences.get(index));
+            }
+            float[][] batchEmbeddings = encodeBatch(batchSequences);
+            for (int i = 0; i < batch.length; i++) {
+                sequenceEmbeddings[batch[i]] = batchEmbeddings[i];
+            }
+        }
+
+        List<List<Partition>> partitionsPerText = new ArrayList<>(texts.size());
+        int sequence = 0;
+        for (int partitionCount : partitionCounts) {
+            List<Partition> partitions = new ArrayList<>(partitionCount);
+            for (int p = 0; p < partitionCount; p++, sequence++) {
+                // The weight is the number of word pieces, without the special tokens
+                partitions.add(new Partition(sequenceEmbeddings[sequence], Math.max(1, lengths[sequence] - 2)));
+            }
+            partitionsPerText.add(partitions);
+        }
+        return partitionsPerText;
+    }
+
+    /**
+     * Splits the sequences into batches of at most <code>batchSize</code> sequences. With <code>sortByLength</code>
+     * the sequences are ordered by length first, so each batch holds sequences of similar length.
+     * @return per batch the indexes of its sequences
+     */
+    static List<int[]> planBatches(int[] lengths, int batchSize, boolean sortByLength) {
+        Integer[] order = new Integer[lengths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (sortByLength) {
+            Arrays.sort(order, Comparator.comparingInt(i -> lengths[i]));
+        }
 
-        for (float[] vector : vectors) {
-            for (int j = 0; j < vectorLength; j++) {
-                averagedVector[j] += vector[j];
+        List<int[]> batches = new ArrayList<>();
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < order.length; from += size) {
+            int to = min(order.length, from + size);
+            int[] batch = new int[to - from];
+            for (int i = from; i < to; i++) {
+                batch[i - from] = order[i];
             }
+            batches.add(batch);
         }
+        return batches;
+    }
+
+    /**
+     * The pooled embedding of one partition of a text and its weight in the average of the text.
+     */
+    private record Partition(float[] embedding, int weight) {
+    }
 
-        for (int j = 0; j < vectorLength; j++) {
-            averagedVector[j] /= numVectors;
+    /**
+     * The word pieces of one partition of a text, the model gets them between [CLS] and [SEP].
+     */
+    private record Sequence(int[] wordPieces, int from, int to) {
+        int length() {
+            return to - from + 2;
         }
+    }
 
-        return averagedVector;
+    /**
+     * Runs the model once for all sequences. The sequences are padded to the length of the longest one, the attention
+     * mask is 0 for the padding. The inputs are written to a workspace taken from the pool of the encoder, which keeps
+     * at most one workspace per core. Only one output is requested from the model: the pooled embeddings when the
+     * model pools itself, the token embeddings otherwise. When the size of the output is known up front and fits in
+     * <code>maxPinnedOutputBytes</code>, the model writes it into a buffer of the workspace and the embeddings are read
+     * from there, without creating Java arrays for the token embeddings. A larger output is allocated by ONNX Runtime
+     * for the run only.
+     * @return the pooled embedding of every sequence
+     */
+    private float[][] encodeBatch(List<Sequence> sequences) {
+        int batchSize = sequences.size();
+        int maxLength = sequences.stream().mapToInt(Sequence::length).max().orElse(0);
+
+        InputWorkspace workspace = this.workspaces.poll();
+        if (workspace == null) {
+            workspace = new InputWorkspace(this.workspaceCapacity, this.maxPinnedOutputElements);
+        }
+        try {
+            return encodeBatch(sequences, workspace, batchSize, maxLength);
+        } finally {
+            this.workspaces.offer(workspace);
+        }
+    }
+
+    private float[][] encodeBatch(List<Sequence> sequences, InputWorkspace workspace, int batchSize, int maxLength) {
+        int elements = batchSize * maxLength;
+        workspace.ensureCapacity(elements);
+        LongBuffer tokens = workspace.inputIds(elements);
+        LongBuffer attentionMasks = workspace.attentionMask(elements);
+        for (int b = 0; b < batchSize; b++) {
+            writeSequence(sequences.get(b), tokens, attentionMasks, b * maxLength, maxLength);
+        }
+
+        long[] shape = {batchSize, maxLength};
+
+        try (
+                OnnxTensor tokensTensor = createTensor(environment, tokens, shape);
+                OnnxTensor attentionMasksTensor = createTensor(environment, attentionMasks, shape);
+                OnnxTensor tokenTypeIdsTensor = createTensor(environment, workspace.tokenTypeIds(elements), shape)
+        ) {
+            Map<String, OnnxTensor> inputs = workspace.inputs(tokensTensor, attentionMasksTensor, tokenTypeIdsTensor);
+
+            int outputElements = (this.pooledOutput ? batchSize : elements) * Math.max(0, this.hiddenSize);
+            if (this.hiddenSize > 0 && workspace.fitsOutput(outputElements)) {
+                long[] outputShape = this.pooledOutput
+                        ? new long[]{batchSize, this.hiddenSize}
+                        : new long[]{batchSize, maxLength, this.hiddenSize};
+                FloatBuffer output = workspace.output(outputElements);
+                try (OnnxTensor outputTensor = createTensor(environment, output, outputShape);
+                     Result ignored = session.run(inputs, Set.of(), Map.of(outputName, outputTensor))) {
+                    return pool(output, sequences, maxLength, this.hiddenSize);
+                }
+            }
+            try (Result result = session.run(inputs, Set.of(outputName))) {
+                OnnxTensor embeddings = (OnnxTensor) result.get(0);
+                long[] outputShape = embeddings.getInfo().getShape();
+                return pool(embeddings.getFloatBuffer(), sequences, maxLength, (int) outputShape[outputShape.length - 1]);
+            }
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes [CLS], the word pieces, [SEP] and the padding of one sequence at the offset, with an attention mask of 1
+     * for the tokens and 0 for the padding.
+     */
+    private void writeSequence(Sequence sequence, LongBuffer tokens, LongBuffer attentionMasks, int offset,
+                               int maxLength) {
+        int position = offset;
+        tokens.put(position++, this.clsId);
+        for (int p = sequence.from(); p < sequence.to(); p++) {
+            tokens.put(position++, sequence.wordPieces()[p]);
+        }
+        tokens.put(position++, this.sepId);
+        for (int i = offset; i < position; i++) {
+            attentionMasks.put(i, 1L);
+        }
+        for (; position < offset + maxLength; position++) {
+            tokens.put(position, this.padId);
+            attentionMasks.put(position, 0L);
+        }
+    }
+
+    /**
+     * Reads the embedding of every sequence from the output of the model. A pooled output holds one row per sequence,
+     * token embeddings are pooled with the configured strategy.
+     */
+    private float[][] pool(FloatBuffer output, List<Sequence> sequences, int maxLength, int hiddenSize) {
+        float[][] embeddings = new float[sequences.size()][];
+        for (int b = 0; b < embeddings.length; b++) {
+            if (this.pooledOutput) {
+                embeddings[b] = new float[hiddenSize];
+                output.get(b * hiddenSize, embeddings[b]);
+            } else {
+                embeddings[b] = this.config.getPoolingStrategy()
+                        .pool(output, b * maxLength * hiddenSize, sequences.get(b).length(), hiddenSize);
+            }
+        }
+        return embeddings;
     }
 
     private float[] weightedAverage(List<float[]> embeddings, List<Integer> weights) {
@@ -197,35 +697,6 @@ public class OnnxBertBiEncoder {
     }
 
     int countTokens(String text) {
-        return tokenizer.tokenize(text).size();
-    }
-
-    private byte[] loadModel(InputStream modelInputStream) {
-        try (
-                InputStream inputStream = modelInputStream;
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream()
-        ) {
-            int nRead;
-            byte[] data = new byte[1024];
-
-            while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-
-            buffer.flush();
-            return buffer.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private static Vocabulary createVocabularyFrom(URL vocabularyFile) {
-        try {
-            return DefaultVocabulary.builder()
-                    .addFromTextFile(vocabularyFile)
-                    .build();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return tokenizer.tokenize(text).length;
     }
 }
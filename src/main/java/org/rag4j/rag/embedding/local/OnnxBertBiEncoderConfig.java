@@ -0,0 +1,76 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the {@link OnnxBertBiEncoder}.
+ * <ul>
+ *     <li><code>batchSize</code> - the maximum number of token sequences passed to the model in one run. Sequences
+ *     shorter than the longest one in a batch are padded, the attention mask hides the padding from the model.</li>
+ *     <li><code>sortByLength</code> - groups sequences of similar length into the same batch, which reduces the
+ *     padding and with that the work done by the model.</li>
+ *     <li><code>intraOpThreads</code> - the number of threads used within one operator, 0 lets ONNX Runtime pick one
+ *     thread per physical core.</li>
+ *     <li><code>interOpThreads</code> - the number of threads used to run independent operators in parallel, 0 lets
+ *     ONNX Runtime decide.</li>
+ *     <li><code>optimizationLevel</code> - the graph optimisations applied when the session is created.</li>
+ *     <li><code>memoryArena</code> - keeps freed CPU memory in an arena for the next run, trades memory for fewer
+ *     allocations.</li>
+ *     <li><code>memoryPattern</code> - plans the memory of a run up front from the shapes of earlier runs.</li>
+ *     <li><code>globalThreadPool</code> - all encoders share one pool of threads owned by the ONNX Runtime
+ *     environment, sized by the intra- and inter-op thread counts. The pool is created with the environment, so the
+ *     first encoder in the JVM decides whether it exists and how large it is.</li>
+ *     <li><code>modelPath</code> - the ONNX model file. Without a path the model bundled on the classpath is
+ *     extracted once to the <code>modelCacheDirectory</code>. The session is always created from a file, so the model is
+ *     never buffered on the Java heap.</li>
+ *     <li><code>modelCacheDirectory</code> - the directory the bundled model is extracted to, by default
+ *     <code>.cache/rag4j/onnx</code> in the home directory of the user. A new directory is only accessible by the
+ *     user.</li>
+ *     <li><code>optimizedModelPath</code> - file to store the optimised model in. When the file exists and was
+ *     created from the same model at the same optimisation level, the session is created from it, which skips most
+ *     of the optimisation work at startup. Otherwise the optimised model is written again.</li>
+ *     <li><code>maxPinnedOutputBytes</code> - the largest model output written into a reused direct buffer, 8 MB by
+ *     default. The encoder keeps such a buffer for at most one run per core; a larger output, such as the token
+ *     embeddings of a full batch of long sequences, is allocated by ONNX Runtime for the run only. 0 never reuses an
+ *     output buffer.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class OnnxBertBiEncoderConfig {
+    @Builder.Default
+    private int batchSize = 32;
+    @Builder.Default
+    private boolean sortByLength = true;
+    @Builder.Default
+    private int intraOpThreads = 0;
+    @Builder.Default
+    private int interOpThreads = 0;
+    @Builder.Default
+    private OptLevel optimizationLevel = OptLevel.ALL_OPT;
+    @Builder.Default
+    private boolean memoryArena = true;
+    @Builder.Default
+    private boolean memoryPattern = true;
+    @Builder.Default
+    private boolean globalThreadPool = false;
+    private Path modelPath;
+    @Builder.Default
+    private Path modelCacheDirectory = Path.of(System.getProperty("user.home"), ".cache", "rag4j", "onnx");
+    private Path optimizedModelPath;
+    @Builder.Default
+    private PoolingStrategy poolingStrategy = PoolingStrategy.MEAN;
+    private String pooledOutputName;
+    @Builder.Default
+    private int partitionOverlap = 0;
+    @Builder.Default
+    private int maxPinnedOutputBytes = 8 * 1024 * 1024;
+
+    public static OnnxBertBiEncoderConfig defaults() {
+        return OnnxBertBiEncoderConfig.builder().build();
+    }
+}
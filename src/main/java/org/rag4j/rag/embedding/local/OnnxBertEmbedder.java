@@ -1,25 +1,63 @@
 package org.rag4j.rag.embedding.local;
 
 import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class OnnxBertEmbedder implements Embedder {
+public class OnnxBertEmbedder implements Embedder, AutoCloseable {
     private final OnnxBertBiEncoder model;
 
     public OnnxBertEmbedder() {
         this.model = new OnnxBertBiEncoder();
     }
 
+    public OnnxBertEmbedder(OnnxBertBiEncoderConfig config) {
+        this.model = new OnnxBertBiEncoder(config);
+    }
+
     @Override
     public List<Float> embed(String text) {
-        float[] embed = model.embed(text);
+        return embedVector(text).toList();
+    }
+
+    @Override
+    public List<List<Float>> embedAll(List<String> texts) {
+        return embedAllVectors(texts).stream().map(EmbeddingVector::toList).toList();
+    }
 
-        List<Float> list = new ArrayList<>();
-        for (float value : embed) {
-            list.add(value);
-        }
-        return list;
+    @Override
+    public EmbeddingVector embedVector(String text) {
+        return EmbeddingVector.of(model.embed(text));
+    }
+
+    @Override
+    public List<EmbeddingVector> embedAllVectors(List<String> texts) {
+        return model.embedAll(texts).stream().map(EmbeddingVector::of).toList();
+    }
+
+    /**
+     * Creates one embedding per partition of a long text, see {@link OnnxBertBiEncoder#embedPartitions(String)}.
+     */
+    public List<EmbeddingVector> embedPartitions(String text) {
+        return model.embedPartitions(text).stream().map(EmbeddingVector::of).toList();
+    }
+
+    @Override
+    public String identifier() {
+        return "onnx/" + model.identifier();
+    }
+
+    @Override
+    public boolean producesNormalizedVectors() {
+        return true;
+    }
+
+    /**
+     * Closes the ONNX session of the model, see {@link OnnxBertBiEncoder#close()}.
+     */
+    @Override
+    public void close() {
+        model.close();
     }
 }
@@ -0,0 +1,66 @@
+package org.rag4j.rag.embedding.local;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Turns the token embeddings of a sequence into one embedding for the sequence. The token embeddings are read from a
+ * buffer with the embeddings of all tokens one after the other, the padding after the tokens of the sequence is never
+ * read. [CLS] and [SEP] are part of the sequence, like they are for the attention mask of the model.
+ */
+public enum PoolingStrategy {
+    /**
+     * The average of the token embeddings, the pooling the sentence-transformers models are trained with.
+     */
+    MEAN {
+        @Override
+        public float[] pool(FloatBuffer tokenEmbeddings, int offset, int tokens, int hiddenSize) {
+            float[] averagedVector = new float[hiddenSize];
+            for (int t = 0; t < tokens; t++) {
+                int tokenOffset = offset + t * hiddenSize;
+                for (int j = 0; j < hiddenSize; j++) {
+                    averagedVector[j] += tokenEmbeddings.get(tokenOffset + j);
+                }
+            }
+            for (int j = 0; j < hiddenSize; j++) {
+                averagedVector[j] /= tokens;
+            }
+            return averagedVector;
+        }
+    },
+    /**
+     * The embedding of the [CLS] token, for models trained to put the meaning of the sequence in the first token.
+     */
+    CLS {
+        @Override
+        public float[] pool(FloatBuffer tokenEmbeddings, int offset, int tokens, int hiddenSize) {
+            float[] vector = new float[hiddenSize];
+            tokenEmbeddings.get(offset, vector);
+            return vector;
+        }
+    },
+    /**
+     * The largest value of every dimension over the tokens.
+     */
+    MAX {
+        @Override
+        public float[] pool(FloatBuffer tokenEmbeddings, int offset, int tokens, int hiddenSize) {
+            float[] vector = new float[hiddenSize];
+            tokenEmbeddings.get(offset, vector);
+            for (int t = 1; t < tokens; t++) {
+                int tokenOffset = offset + t * hiddenSize;
+                for (int j = 0; j < hiddenSize; j++) {
+                    vector[j] = Math.max(vector[j], tokenEmbeddings.get(tokenOffset + j));
+                }
+            }
+            return vector;
+        }
+    };
+
+    /**
+     * @param offset     the position of the first value of the first token of the sequence
+     * @param tokens     the number of tokens of the sequence, without the padding
+     * @param hiddenSize the number of values per token
+     * @return the embedding of the sequence
+     */
+    public abstract float[] pool(FloatBuffer tokenEmbeddings, int offset, int tokens, int hiddenSize);
+}
@@ -0,0 +1,340 @@
+package org.rag4j.rag.embedding.local;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>Uncased BERT tokenizer that turns a text straight into vocabulary ids. It produces the same ids as the DJL
+ * <code>BertFullTokenizer</code> with lower casing followed by a vocabulary lookup, without creating a string for
+ * every word piece.</p>
+ * <p>The text is cleaned and split on whitespace, every word is lower cased, decomposed and stripped of accents, and
+ * split into punctuation and the text in between. Words of plain ASCII are handled in place, only words with other
+ * characters go through {@link String#toLowerCase(Locale)} and {@link Normalizer}. Each word is then split into the
+ * longest word pieces of the vocabulary, found by walking a character trie. A word that cannot be split, or that is
+ * longer than 200 characters, becomes <code>[UNK]</code>.</p>
+ * <p>The trie is kept in primitive arrays: an open addressing table maps a node and a character to the child node, and
+ * every node knows the id of the vocabulary entry that ends in it.</p>
+ */
+final class WordPieceTokenizer {
+    static final String UNKNOWN = "[UNK]";
+    private static final String CONTINUATION = "##";
+    private static final int MAX_WORD_LENGTH = 200;
+    private static final int NO_TOKEN = -1;
+    private static final int NO_NODE = -1;
+    private static final long EMPTY = -1L;
+    private static final int PUNCTUATION_TYPES = (1 << Character.CONNECTOR_PUNCTUATION)
+            | (1 << Character.DASH_PUNCTUATION) | (1 << Character.START_PUNCTUATION)
+            | (1 << Character.END_PUNCTUATION) | (1 << Character.INITIAL_QUOTE_PUNCTUATION)
+            | (1 << Character.FINAL_QUOTE_PUNCTUATION) | (1 << Character.OTHER_PUNCTUATION);
+
+    private final String[] tokens;
+    private final int wordRoot;
+    private final int continuationRoot;
+    private final int unknownId;
+
+    private int[] nodeTokens;
+    private int nodeCount;
+    private long[] edgeKeys;
+    private int[] edgeTargets;
+    private int edgeCount;
+
+    WordPieceTokenizer(String[] vocabulary) {
+        this.tokens = vocabulary;
+        this.nodeTokens = new int[1024];
+        this.edgeKeys = new long[1 << 16];
+        Arrays.fill(this.edgeKeys, EMPTY);
+        this.edgeTargets = new int[1 << 16];
+
+        this.wordRoot = newNode();
+        this.continuationRoot = newNode();
+        for (int id = 0; id < vocabulary.length; id++) {
+            String token = vocabulary[id];
+            insert(this.wordRoot, token, 0, id);
+            if (token.startsWith(CONTINUATION)) {
+                insert(this.continuationRoot, token, CONTINUATION.length(), id);
+            }
+        }
+        this.unknownId = idOf(UNKNOWN);
+        if (this.unknownId == NO_TOKEN) {
+            throw new IllegalArgumentException("The vocabulary has no " + UNKNOWN + " token");
+        }
+    }
+
+    /**
+     * Reads a vocabulary with one token per line, the id of a token is its line number starting at 0.
+     */
+    static WordPieceTokenizer fromResource(String resource) {
+        try (InputStream inputStream = WordPieceTokenizer.class.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("The vocabulary " + resource + " is not on the classpath");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return new WordPieceTokenizer(reader.lines().toArray(String[]::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the vocabulary " + resource, e);
+        }
+    }
+
+    /**
+     * @return the id of the token, or -1 if the vocabulary does not contain it
+     */
+    int idOf(String token) {
+        int node = this.wordRoot;
+        for (int i = 0; i < token.length() && node != NO_NODE; i++) {
+            node = child(node, token.charAt(i));
+        }
+        return node == NO_NODE ? NO_TOKEN : this.nodeTokens[node];
+    }
+
+    String tokenOf(int id) {
+        return this.tokens[id];
+    }
+
+    /**
+     * Splits the text into word pieces.
+     * @return the vocabulary ids of the word pieces
+     */
+    int[] tokenize(String text) {
+        IdBuffer ids = new IdBuffer(Math.max(16, text.length() / 3));
+        char[] word = new char[64];
+        int length = 0;
+        boolean ascii = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (c == 0 || c == 0xFFFD || isControl(c)) {
+                continue;
+            }
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                if (length > 0) {
+                    tokenizeWord(word, length, ascii, ids);
+                }
+                length = 0;
+                ascii = true;
+                continue;
+            }
+            if (length == word.length) {
+                word = Arrays.copyOf(word, 2 * length);
+            }
+            word[length++] = c;
+            ascii &= c < 128;
+        }
+        return ids.toArray();
+    }
+
+    private void tokenizeWord(char[] word, int length, boolean ascii, IdBuffer ids) {
+        char[] chars = word;
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                char c = word[i];
+                if (c >= 'A' && c <= 'Z') {
+                    word[i] = (char) (c + ('a' - 'A'));
+                }
+            }
+        } else {
+            chars = normalize(new String(word, 0, length));
+            length = chars.length;
+        }
+
+        int start = 0;
+        int i = 0;
+        while (i < length) {
+            int codePoint = Character.codePointAt(chars, i, length);
+            int next = i + Character.charCount(codePoint);
+            if (isPunctuation(codePoint)) {
+                splitIntoPieces(chars, start, i, ids);
+                splitIntoPieces(chars, i, next, ids);
+                start = next;
+            }
+            i = next;
+        }
+        splitIntoPieces(chars, start, length, ids);
+    }
+
+    /**
+     * Lower cases the word, decomposes it and removes the accents, like the DJL preprocessors do for a whole word.
+     */
+    private static char[] normalize(String word) {
+        String decomposed = Normalizer.normalize(word.toLowerCase(Locale.ENGLISH), Normalizer.Form.NFD);
+        char[] chars = new char[decomposed.length()];
+        int length = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                chars[length++] = c;
+            }
+        }
+        return length == chars.length ? chars : Arrays.copyOf(chars, length);
+    }
+
+    /**
+     * Greedy longest match first: from every position the longest vocabulary entry is taken, after the first piece
+     * only the entries that start with <code>##</code> are considered.
+     */
+    private void splitIntoPieces(char[] chars, int from, int to, IdBuffer ids) {
+        if (from == to) {
+            return;
+        }
+        if (to - from > MAX_WORD_LENGTH) {
+            ids.add(this.unknownId);
+            return;
+        }
+        int mark = ids.size();
+        int start = from;
+        while (start < to) {
+            int node = start == from ? this.wordRoot : this.continuationRoot;
+            int matchEnd = -1;
+            int matchId = NO_TOKEN;
+            for (int i = start; i < to; i++) {
+                node = child(node, chars[i]);
+                if (node == NO_NODE) {
+                    break;
+                }
+                if (this.nodeTokens[node] != NO_TOKEN) {
+                    matchEnd = i + 1;
+                    matchId = this.nodeTokens[node];
+                }
+            }
+            if (matchId == NO_TOKEN) {
+                ids.truncate(mark);
+                ids.add(this.unknownId);
+                return;
+            }
+            ids.add(matchId);
+            start = matchEnd;
+        }
+    }
+
+    private static boolean isControl(char c) {
+        return c != '\t' && c != '\n' && c != '\r' && Character.isISOControl(c);
+    }
+
+    /**
+     * ASCII punctuation and symbols, like the POSIX <code>Punct</code> class, and the Unicode punctuation categories.
+     */
+    private static boolean isPunctuation(int codePoint) {
+        if (codePoint < 128) {
+            return codePoint > ' ' && codePoint < 127 && !Character.isLetterOrDigit(codePoint);
+        }
+        return ((PUNCTUATION_TYPES >> Character.getType(codePoint)) & 1) != 0;
+    }
+
+    private void insert(int root, String token, int from, int id) {
+        int node = root;
+        for (int i = from; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int next = child(node, c);
+            if (next == NO_NODE) {
+                next = newNode();
+                addEdge(node, c, next);
+            }
+            node = next;
+        }
+        // With duplicate entries the first one wins, like a vocabulary that maps every token to one index
+        if (this.nodeTokens[node] == NO_TOKEN) {
+            this.nodeTokens[node] = id;
+        }
+    }
+
+    private int newNode() {
+        if (this.nodeCount == this.nodeTokens.length) {
+            this.nodeTokens = Arrays.copyOf(this.nodeTokens, 2 * this.nodeCount);
+        }
+        this.nodeTokens[this.nodeCount] = NO_TOKEN;
+        return this.nodeCount++;
+    }
+
+    private int child(int node, char c) {
+        long key = edgeKey(node, c);
+        int mask = this.edgeKeys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long slotKey = this.edgeKeys[slot];
+            if (slotKey == key) {
+                return this.edgeTargets[slot];
+            }
+            if (slotKey == EMPTY) {
+                return NO_NODE;
+            }
+        }
+    }
+
+    private void addEdge(int node, char c, int target) {
+        if (2 * (this.edgeCount + 1) > this.edgeKeys.length) {
+            rehash();
+        }
+        long key = edgeKey(node, c);
+        int mask = this.edgeKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.edgeKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        this.edgeKeys[slot] = key;
+        this.edgeTargets[slot] = target;
+        this.edgeCount++;
+    }
+
+    private void rehash() {
+        long[] oldKeys = this.edgeKeys;
+        int[] oldTargets = this.edgeTargets;
+        this.edgeKeys = new long[2 * oldKeys.length];
+        Arrays.fill(this.edgeKeys, EMPTY);
+        this.edgeTargets = new int[2 * oldTargets.length];
+        int mask = this.edgeKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.edgeKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.edgeKeys[slot] = oldKeys[i];
+                this.edgeTargets[slot] = oldTargets[i];
+            }
+        }
+    }
+
+    private static long edgeKey(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Growable array of ids.
+     */
+    private static final class IdBuffer {
+        private int[] ids;
+        private int size;
+
+        IdBuffer(int capacity) {
+            this.ids = new int[capacity];
+        }
+
+        void add(int id) {
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, 2 * this.size);
+            }
+            this.ids[this.size++] = id;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        void truncate(int size) {
+            this.size = size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.ids, this.size);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.rag4j.rag.retrieval;
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.tracker.RAGTracker;
@@ -32,6 +33,14 @@ public class ObservedRetriever implements Retriever {
         return relevantChunks;
     }
 
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        List<RelevantChunk> relevantChunks = retriever.findRelevantChunks(question, vector, maxResults);
+
+        relevantChunks.forEach(relevantChunk -> RAGTracker.addRelevantChunks(relevantChunk.getDocumentChunkId(), relevantChunk.getText()));
+        return relevantChunks;
+    }
+
     @Override
     public Chunk getChunk(String documentId, String chunkId) {
         return retriever.getChunk(documentId, chunkId);
@@ -1,5 +1,6 @@
 package org.rag4j.rag.retrieval;
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.retrieval.strategies.TopNRetrievalStrategy;
 
 import java.util.List;
@@ -22,6 +23,14 @@ public interface RetrievalStrategy {
 
     RetrievalOutput retrieve(String question, List<Float> vector, int maxResults);
 
+    /**
+     * Retrieves the context using a primitive vector. The default boxes the vector, the strategies in this project
+     * pass it on to their retriever as is.
+     */
+    default RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults) {
+        return retrieve(question, vector.toList(), maxResults);
+    }
+
     /**
      * Some Retrieval strategies do not add anything to the observer. For example, the {@link TopNRetrievalStrategy}
      * @param question The question to retrieve context for
@@ -44,4 +53,16 @@ public interface RetrievalStrategy {
     default RetrievalOutput retrieve(String question, List<Float> vector, int maxResults, boolean observe) {
         return retrieve(question, vector, maxResults);
     }
+
+    /**
+     * Some Retrieval strategies do not add anything to the observer. For example, the {@link TopNRetrievalStrategy}
+     * @param question The question to retrieve context for
+     * @param vector The primitive vector to retrieve context for
+     * @param maxResults The maximum number of results to return
+     * @param observe If we use the tracker to observe
+     * @return The context
+     */
+    default RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults, boolean observe) {
+        return retrieve(question, vector, maxResults);
+    }
 }
@@ -1,5 +1,6 @@
 package org.rag4j.rag.retrieval;
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 
@@ -14,6 +15,14 @@ public interface Retriever {
     List<RelevantChunk> findRelevantChunks(String question, int maxResults);
     List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults);
 
+    /**
+     * Finds the relevant chunks using a primitive vector. The default boxes the vector and calls
+     * {@link #findRelevantChunks(String, List, int)}, retrievers that work with primitive vectors override it.
+     */
+    default List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        return findRelevantChunks(question, vector.toList(), maxResults);
+    }
+
     Chunk getChunk(String documentId, String chunkId);
 
     void loopOverChunks(ChunkProcessor chunkProcessor);
@@ -0,0 +1,98 @@
+package org.rag4j.rag.retrieval.quality;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.Retriever;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Value object that compares an approximate retriever with an exact one. The recall is the fraction of the exact top k
+ * chunks that the approximate retriever also returns, averaged over all queries. Latencies are measured per query in
+ * microseconds, the report contains the mean and the 95th percentile for both retrievers.
+ */
+@Getter
+@AllArgsConstructor
+public class ApproximateRetrievalReport {
+    private int numberOfQueries;
+    private int maxResults;
+    private double recall;
+    private double exactMeanLatency;
+    private double exactP95Latency;
+    private double approximateMeanLatency;
+    private double approximateP95Latency;
+
+    /**
+     * Runs all query vectors against both retrievers and reports the recall and latency of the approximate one.
+     * @param exact the retriever that returns the true nearest chunks, for example the InternalContentStore
+     * @param approximate the retriever to evaluate
+     * @param queryVectors the vectors to search for
+     * @param maxResults the number of results to request per query
+     * @return the report
+     */
+    public static ApproximateRetrievalReport measure(Retriever exact, Retriever approximate,
+                                                     List<List<Float>> queryVectors, int maxResults) {
+        long[] exactLatencies = new long[queryVectors.size()];
+        long[] approximateLatencies = new long[queryVectors.size()];
+        double totalRecall = 0.0;
+
+        for (int i = 0; i < queryVectors.size(); i++) {
+            List<Float> vector = queryVectors.get(i);
+
+            long start = System.nanoTime();
+            List<RelevantChunk> expected = exact.findRelevantChunks("", vector, maxResults);
+            exactLatencies[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<RelevantChunk> found = approximate.findRelevantChunks("", vector, maxResults);
+            approximateLatencies[i] = System.nanoTime() - start;
+
+            totalRecall += recall(expected, found);
+        }
+
+        int numberOfQueries = queryVectors.size();
+        return new ApproximateRetrievalReport(
+                numberOfQueries,
+                maxResults,
+                numberOfQueries == 0 ? 0.0 : totalRecall / numberOfQueries,
+                meanMicros(exactLatencies),
+                p95Micros(exactLatencies),
+                meanMicros(approximateLatencies),
+                p95Micros(approximateLatencies)
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("recall@%d=%.4f over %d queries, exact mean/p95=%.1f/%.1f us, approximate mean/p95=%.1f/%.1f us",
+                maxResults, recall, numberOfQueries, exactMeanLatency, exactP95Latency,
+                approximateMeanLatency, approximateP95Latency);
+    }
+
+    private static double recall(List<RelevantChunk> expected, List<RelevantChunk> found) {
+        if (expected.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> foundIds = found.stream().map(RelevantChunk::getDocumentChunkId).collect(Collectors.toSet());
+        long hits = expected.stream().map(RelevantChunk::getDocumentChunkId).filter(foundIds::contains).count();
+        return (double) hits / expected.size();
+    }
+
+    private static double meanMicros(long[] latencies) {
+        return Arrays.stream(latencies).average().orElse(0.0) / 1_000.0;
+    }
+
+    private static double p95Micros(long[] latencies) {
+        if (latencies.length == 0) {
+            return 0.0;
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(0.95 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+}
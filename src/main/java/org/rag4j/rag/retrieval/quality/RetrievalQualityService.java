@@ -32,16 +32,19 @@ public class RetrievalQualityService {
     public RetrievalQuality obtainRetrievalQuality(List<QuestionAnswerRecord> questionAnswerRecords, Embedder embedder) {
         Set<String> correct = new HashSet<>();
         Set<String> incorrect = new HashSet<>();
-        questionAnswerRecords.forEach(questionAnswerRecord -> {
+        List<List<Float>> embeddings = embedder.embedAll(
+                questionAnswerRecords.stream().map(QuestionAnswerRecord::getQuestion).toList());
+        for (int i = 0; i < questionAnswerRecords.size(); i++) {
+            QuestionAnswerRecord questionAnswerRecord = questionAnswerRecords.get(i);
             String question = questionAnswerRecord.getQuestion();
-            List<Float> embed = embedder.embed(question);
+            List<Float> embed = embeddings.get(i);
             RelevantChunk relevantChunks = this.retriever.findRelevantChunks(question, embed, 1).getFirst();
             if (relevantChunks.getChunkId().equals(questionAnswerRecord.getChunkId()) && relevantChunks.getDocumentId().equals(questionAnswerRecord.getDocumentId())) {
                 correct.add(relevantChunks.getDocumentChunkId());
             } else {
                 incorrect.add(questionAnswerRecord.getDocumentId() + "_" + questionAnswerRecord.getChunkId());
             }
-        });
+        }
 
         return new RetrievalQuality(correct, incorrect);
     }
@@ -1,6 +1,7 @@
 package org.rag4j.rag.retrieval.strategies;
 
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.retrieval.RetrievalOutput;
@@ -39,6 +40,13 @@ public class DocumentRetrievalStrategy implements RetrievalStrategy {
         return extractDocumentFromRelevantChunk(relevantItems);
     }
 
+    @Override
+    public RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults) {
+        List<RelevantChunk> relevantItems = retriever.findRelevantChunks(question, vector, maxResults);
+
+        return extractDocumentFromRelevantChunk(relevantItems);
+    }
+
     private RetrievalOutput extractDocumentFromRelevantChunk(List<RelevantChunk> relevantItems) {
         // Remove chunks from the same document
         List<RelevantChunk> relevantItemsWithoutDuplicates = relevantItems.stream()
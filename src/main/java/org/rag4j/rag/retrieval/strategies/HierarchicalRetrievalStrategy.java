@@ -1,6 +1,7 @@
 package org.rag4j.rag.retrieval.strategies;
 
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.retrieval.RetrievalOutput;
@@ -33,6 +34,12 @@ public class HierarchicalRetrievalStrategy implements RetrievalStrategy {
         return extractHierarchyForChunks(relevantChunks);
     }
 
+    @Override
+    public RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults) {
+        List<RelevantChunk> relevantChunks = retriever.findRelevantChunks(question, vector, maxResults);
+        return extractHierarchyForChunks(relevantChunks);
+    }
+
     private RetrievalOutput extractHierarchyForChunks(List<RelevantChunk> relevantChunks) {
         List<RetrievalOutput.RetrievalOutputItem> retrievalOutputItems = new ArrayList<>();
         Set<String> usedChunkIds = new HashSet<>();
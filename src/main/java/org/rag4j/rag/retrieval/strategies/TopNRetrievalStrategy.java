@@ -1,5 +1,6 @@
 package org.rag4j.rag.retrieval.strategies;
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.retrieval.RetrievalOutput;
 import org.rag4j.rag.retrieval.RetrievalStrategy;
@@ -30,6 +31,12 @@ public class TopNRetrievalStrategy implements RetrievalStrategy {
         return extractOutputFromRelevantChunks(relevantChunks);
     }
 
+    @Override
+    public RetrievalOutput retrieve(String question, EmbeddingVector vector, int topN) {
+        List<RelevantChunk> relevantChunks = retriever.findRelevantChunks(question, vector, topN);
+        return extractOutputFromRelevantChunks(relevantChunks);
+    }
+
     private static RetrievalOutput extractOutputFromRelevantChunks(List<RelevantChunk> relevantChunks) {
         List<RetrievalOutput.RetrievalOutputItem> retrievalOutputItems = relevantChunks.stream()
                 .map(relevantItem -> RetrievalOutput.RetrievalOutputItem.builder()
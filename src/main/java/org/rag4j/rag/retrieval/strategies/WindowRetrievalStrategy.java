@@ -1,5 +1,6 @@
 package org.rag4j.rag.retrieval.strategies;
 
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.retrieval.RetrievalOutput;
 import org.rag4j.rag.retrieval.RetrievalStrategy;
@@ -43,6 +44,11 @@ public class WindowRetrievalStrategy implements RetrievalStrategy {
         return retrieve(question, vector, maxResults, false);
     }
 
+    @Override
+    public RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults) {
+        return retrieve(question, vector, maxResults, false);
+    }
+
     @Override
     public RetrievalOutput retrieve(String question, int maxResults, boolean observe) {
         List<RelevantChunk> relevantItems = retriever.findRelevantChunks(question, maxResults);
@@ -57,6 +63,13 @@ public class WindowRetrievalStrategy implements RetrievalStrategy {
         return extractWindowFromRelevantChunk(relevantItems, observe);
     }
 
+    @Override
+    public RetrievalOutput retrieve(String question, EmbeddingVector vector, int maxResults, boolean observe) {
+        List<RelevantChunk> relevantItems = retriever.findRelevantChunks(question, vector, maxResults);
+
+        return extractWindowFromRelevantChunk(relevantItems, observe);
+    }
+
     private RetrievalOutput extractWindowFromRelevantChunk(List<RelevantChunk> relevantItems, boolean observe) {
         List<RetrievalOutput.RetrievalOutputItem> outputItems = relevantItems
                 .stream()
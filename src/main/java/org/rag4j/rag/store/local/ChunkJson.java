@@ -0,0 +1,71 @@
+package org.rag4j.rag.store.local;
+
+import org.json.JSONObject;
+import org.rag4j.rag.model.Chunk;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Converts chunks from and to JSON, used by the local stores that write chunk metadata next to their vectors.
+ * <p>The properties go through JSON, so only strings, numbers, booleans and maps and collections of those are
+ * accepted. They come back as the types JSON has: numbers as the smallest fitting <code>Integer</code>,
+ * <code>Long</code>, <code>BigInteger</code> or <code>BigDecimal</code>, collections as lists. Properties with a
+ * null value are dropped.</p>
+ */
+final class ChunkJson {
+    private ChunkJson() {
+    }
+
+    static JSONObject toJson(Chunk chunk) {
+        JSONObject json = new JSONObject();
+        json.put("documentId", chunk.getDocumentId());
+        json.put("chunkId", chunk.getChunkId());
+        json.put("totalChunks", chunk.getTotalChunks());
+        json.put("text", chunk.getText());
+        json.put("properties", propertiesToJson(chunk));
+        return json;
+    }
+
+    /**
+     * @throws LocalStoreException when a property has a value that JSON cannot represent
+     */
+    static JSONObject propertiesToJson(Chunk chunk) {
+        if (chunk.getProperties() == null) {
+            return new JSONObject();
+        }
+        chunk.getProperties().forEach((name, value) -> {
+            if (!isJsonValue(value)) {
+                throw new LocalStoreException(String.format("Property %s of chunk %s_%s has a %s value, only strings, "
+                                + "numbers, booleans, maps and collections can be stored", name, chunk.getDocumentId(),
+                        chunk.getChunkId(), value.getClass().getName()));
+            }
+        });
+        return new JSONObject(chunk.getProperties());
+    }
+
+    private static boolean isJsonValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return true;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.keySet().stream().allMatch(key -> key instanceof String)
+                    && map.values().stream().allMatch(ChunkJson::isJsonValue);
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().allMatch(ChunkJson::isJsonValue);
+        }
+        return false;
+    }
+
+    static Chunk fromJson(JSONObject json) {
+        Map<String, Object> properties = json.getJSONObject("properties").toMap();
+        return Chunk.builder()
+                .documentId(json.getString("documentId"))
+                .chunkId(json.getString("chunkId"))
+                .totalChunks(json.getInt("totalChunks"))
+                .text(json.getString("text"))
+                .properties(properties)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package org.rag4j.rag.store.local;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Parameters of the {@link HnswContentStore} graph.
+ * <ul>
+ *     <li><code>m</code> - the number of neighbours a node connects to per layer, the bottom layer allows twice as
+ *     many. More neighbours give a better recall at the cost of memory and insert time.</li>
+ *     <li><code>efConstruction</code> - the size of the candidate list while inserting, a larger value gives a better
+ *     graph and slower indexing.</li>
+ *     <li><code>efSearch</code> - the size of the candidate list while searching, a larger value gives a better
+ *     recall and slower queries. The store never uses less than the number of requested results.</li>
+ *     <li><code>seed</code> - seed for the random layer assignment, a fixed seed makes the graph reproducible.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class HnswConfig {
+    @Builder.Default
+    private int m = 16;
+    @Builder.Default
+    private int efConstruction = 200;
+    @Builder.Default
+    private int efSearch = 50;
+    @Builder.Default
+    private long seed = 42L;
+
+    public static HnswConfig defaults() {
+        return HnswConfig.builder().build();
+    }
+}
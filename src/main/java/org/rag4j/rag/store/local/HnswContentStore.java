@@ -0,0 +1,351 @@
+package org.rag4j.rag.store.local;
+
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.ChunkProcessor;
+import org.rag4j.rag.retrieval.Retriever;
+import org.rag4j.rag.store.ContentStore;
+
+import java.util.*;
+
+/**
+ * <p>Local content store that uses a Hierarchical Navigable Small World (HNSW) graph to find the nearest chunks. Where
+ * the {@link InternalContentStore} compares the question with every stored vector, this store walks a layered
+ * proximity graph and only compares the question with the nodes it visits. The result is approximate, the
+ * {@link HnswConfig} determines the balance between recall and latency. Use the
+ * {@link org.rag4j.rag.retrieval.quality.ApproximateRetrievalReport} to compare the store with the exact one.</p>
+ * <p>Chunks are inserted in the graph while storing them. Storing a chunk with an existing key marks the old node as
+ * deleted, deleted nodes are still used to navigate the graph but never returned. Scores are euclidean distances,
+ * just like the {@link InternalContentStore}. The store is not thread-safe and does not keep the data in a persistent
+ * storage.</p>
+ */
+public class HnswContentStore implements ContentStore, Retriever {
+    private final VectorSlab vectorStore;
+    private final List<String> slotKeys;
+    private final Map<String, Integer> keySlots;
+    private final Map<String, Chunk> dataStore;
+    private final BitSet deleted;
+
+    private final Embedder embedder;
+    private final HnswConfig config;
+    private final double levelMultiplier;
+    private final Random random;
+
+    /**
+     * Per node and per layer the neighbours of the node, the first element holds the number of neighbours.
+     */
+    private int[][][] links;
+    private int entryPoint;
+    private int maxLevel;
+
+    public HnswContentStore(Embedder embedder) {
+        this(embedder, HnswConfig.defaults());
+    }
+
+    public HnswContentStore(Embedder embedder, HnswConfig config) {
+        if (config.getM() < 2) {
+            throw new IllegalArgumentException("The number of neighbours m must be at least 2");
+        }
+        this.embedder = embedder;
+        this.config = config;
+        this.levelMultiplier = 1.0 / Math.log(config.getM());
+        this.random = new Random(config.getSeed());
+
+        this.vectorStore = new VectorSlab();
+        this.slotKeys = new ArrayList<>();
+        this.keySlots = new HashMap<>();
+        this.dataStore = new HashMap<>();
+        this.deleted = new BitSet();
+        this.links = new int[64][][];
+        this.entryPoint = -1;
+        this.maxLevel = -1;
+    }
+
+    @Override
+    public void store(List<Chunk> chunks) {
+        List<EmbeddingVector> vectors = this.embedder.embedAllVectors(chunks.stream().map(Chunk::getText).toList());
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            String key = LocalStores.extractKey(chunk.getDocumentId(), chunk.getChunkId());
+            float[] vector = vectors.get(i).values();
+
+            int slot = this.vectorStore.add(vector);
+            Integer previousSlot = this.keySlots.put(key, slot);
+            if (previousSlot != null) {
+                this.deleted.set(previousSlot);
+            }
+            this.slotKeys.add(key);
+            this.dataStore.put(key, chunk);
+
+            insert(slot);
+        }
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, int maxResults) {
+        return this.findRelevantChunks(question, this.embedder.embedVector(question), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults) {
+        return this.findRelevantChunks(question, EmbeddingVector.fromList(vector), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        float[] query = vector.values();
+        this.vectorStore.checkQuery(query);
+        if (this.entryPoint < 0 || maxResults <= 0) {
+            return new ArrayList<>();
+        }
+
+        int nearest = this.entryPoint;
+        for (int level = this.maxLevel; level > 0; level--) {
+            nearest = greedyClosest(query, nearest, level);
+        }
+        TopKHeap candidates = searchLayer(query, nearest, Math.max(this.config.getEfSearch(), maxResults), 0, true);
+
+        return LocalStores.toRelevantChunks(candidates, maxResults,
+                slot -> this.dataStore.get(this.slotKeys.get(slot)), Math::sqrt);
+    }
+
+    @Override
+    public Chunk getChunk(String documentId, String chunkId) {
+        return this.dataStore.get(LocalStores.extractKey(documentId, chunkId));
+    }
+
+    @Override
+    public void loopOverChunks(ChunkProcessor chunkProcessor) {
+        this.dataStore.values().forEach(chunkProcessor::process);
+    }
+
+    private void insert(int slot) {
+        int level = randomLevel();
+        ensureLinkCapacity(slot + 1);
+        this.links[slot] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            this.links[slot][l] = new int[maxConnections(l) + 1];
+        }
+
+        if (this.entryPoint < 0) {
+            this.entryPoint = slot;
+            this.maxLevel = level;
+            return;
+        }
+
+        float[] vector = this.vectorStore.get(slot);
+        int nearest = this.entryPoint;
+        for (int l = this.maxLevel; l > level; l--) {
+            nearest = greedyClosest(vector, nearest, l);
+        }
+
+        for (int l = Math.min(level, this.maxLevel); l >= 0; l--) {
+            TopKHeap candidates = searchLayer(vector, nearest, this.config.getEfConstruction(), l, false);
+            double[] scores = new double[candidates.size()];
+            int[] slots = candidates.drainSorted(scores);
+
+            int[] neighbours = selectNeighbours(slots, scores, this.config.getM());
+            int[] ownLinks = this.links[slot][l];
+            ownLinks[0] = neighbours.length;
+            System.arraycopy(neighbours, 0, ownLinks, 1, neighbours.length);
+
+            for (int neighbour : neighbours) {
+                connect(neighbour, slot, l);
+            }
+            nearest = slots[0];
+        }
+
+        if (level > this.maxLevel) {
+            this.entryPoint = slot;
+            this.maxLevel = level;
+        }
+    }
+
+    /**
+     * Walks the layer from the provided node to the node closest to the query, only moving when a neighbour is
+     * closer. Used for the sparse upper layers where a single candidate is enough.
+     */
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double currentDistance = this.vectorStore.squaredEuclideanDistance(current, query);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbours = this.links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                double distance = this.vectorStore.squaredEuclideanDistance(neighbours[i], query);
+                if (distance < currentDistance) {
+                    currentDistance = distance;
+                    current = neighbours[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, keeps the <code>ef</code> closest nodes found. When skipping deleted nodes, they
+     * are still expanded but never end up in the result.
+     */
+    private TopKHeap searchLayer(float[] query, int start, int ef, int level, boolean skipDeleted) {
+        BitSet visited = new BitSet(this.vectorStore.size());
+        CandidateQueue candidates = new CandidateQueue();
+        TopKHeap nearest = new TopKHeap(ef);
+
+        double startDistance = this.vectorStore.squaredEuclideanDistance(start, query);
+        visited.set(start);
+        candidates.push(startDistance, start);
+        if (!skipDeleted || !this.deleted.get(start)) {
+            nearest.offer(startDistance, start);
+        }
+
+        while (!candidates.isEmpty()) {
+            double candidateDistance = candidates.peekScore();
+            if (nearest.isFull() && candidateDistance > nearest.worstScore()) {
+                break;
+            }
+            int candidate = candidates.pollSlot();
+
+            int[] neighbours = this.links[candidate][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                double distance = this.vectorStore.squaredEuclideanDistance(neighbour, query);
+                if (!nearest.isFull() || distance < nearest.worstScore()) {
+                    candidates.push(distance, neighbour);
+                    if (!skipDeleted || !this.deleted.get(neighbour)) {
+                        nearest.offer(distance, neighbour);
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Selects neighbours from candidates ordered by distance. A candidate is skipped when it is closer to an already
+     * selected neighbour than to the node itself, which keeps links spread over different directions.
+     */
+    private int[] selectNeighbours(int[] sortedCandidates, double[] distancesToNode, int maxNeighbours) {
+        int[] selected = new int[Math.min(sortedCandidates.length, maxNeighbours)];
+        int numberSelected = 0;
+        for (int i = 0; i < sortedCandidates.length && numberSelected < selected.length; i++) {
+            int candidate = sortedCandidates[i];
+            boolean keep = true;
+            for (int j = 0; j < numberSelected && keep; j++) {
+                keep = this.vectorStore.squaredEuclideanDistance(candidate, selected[j]) >= distancesToNode[i];
+            }
+            if (keep) {
+                selected[numberSelected++] = candidate;
+            }
+        }
+        return Arrays.copyOf(selected, numberSelected);
+    }
+
+    private void connect(int node, int newNeighbour, int level) {
+        int[] nodeLinks = this.links[node][level];
+        int count = nodeLinks[0];
+        if (count < nodeLinks.length - 1) {
+            nodeLinks[count + 1] = newNeighbour;
+            nodeLinks[0] = count + 1;
+            return;
+        }
+
+        TopKHeap closest = new TopKHeap(count + 1);
+        for (int i = 1; i <= count; i++) {
+            closest.offer(this.vectorStore.squaredEuclideanDistance(node, nodeLinks[i]), nodeLinks[i]);
+        }
+        closest.offer(this.vectorStore.squaredEuclideanDistance(node, newNeighbour), newNeighbour);
+
+        double[] distances = new double[closest.size()];
+        int[] sorted = closest.drainSorted(distances);
+        int[] selected = selectNeighbours(sorted, distances, nodeLinks.length - 1);
+
+        nodeLinks[0] = selected.length;
+        System.arraycopy(selected, 0, nodeLinks, 1, selected.length);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * this.config.getM() : this.config.getM();
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - this.random.nextDouble();
+        return (int) Math.floor(-Math.log(uniform) * this.levelMultiplier);
+    }
+
+    private void ensureLinkCapacity(int requiredNodes) {
+        if (requiredNodes > this.links.length) {
+            this.links = Arrays.copyOf(this.links, Math.max(requiredNodes, this.links.length * 2));
+        }
+    }
+
+    /**
+     * Growable min-heap of (score, slot) pairs, the candidate with the lowest score is polled first.
+     */
+    private static final class CandidateQueue {
+        private double[] scores = new double[32];
+        private int[] slots = new int[32];
+        private int size = 0;
+
+        void push(double score, int slot) {
+            if (this.size == this.scores.length) {
+                this.scores = Arrays.copyOf(this.scores, this.size * 2);
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+            }
+            int index = this.size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (this.scores[parent] <= score) {
+                    break;
+                }
+                this.scores[index] = this.scores[parent];
+                this.slots[index] = this.slots[parent];
+                index = parent;
+            }
+            this.scores[index] = score;
+            this.slots[index] = slot;
+        }
+
+        double peekScore() {
+            return this.scores[0];
+        }
+
+        int pollSlot() {
+            int result = this.slots[0];
+            this.size--;
+            if (this.size > 0) {
+                double score = this.scores[this.size];
+                int slot = this.slots[this.size];
+                int index = 0;
+                int half = this.size >>> 1;
+                while (index < half) {
+                    int child = 2 * index + 1;
+                    if (child + 1 < this.size && this.scores[child + 1] < this.scores[child]) {
+                        child++;
+                    }
+                    if (score <= this.scores[child]) {
+                        break;
+                    }
+                    this.scores[index] = this.scores[child];
+                    this.slots[index] = this.slots[child];
+                    index = child;
+                }
+                this.scores[index] = score;
+                this.slots[index] = slot;
+            }
+            return result;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+    }
+}
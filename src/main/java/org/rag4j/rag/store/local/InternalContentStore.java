@@ -1,67 +1,117 @@
 package org.rag4j.rag.store.local;
 
-import org.apache.commons.math3.ml.distance.EuclideanDistance;
 import org.rag4j.rag.model.Chunk;
 import org.rag4j.rag.model.RelevantChunk;
 import org.rag4j.rag.store.ContentStore;
 import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
 import org.rag4j.rag.retrieval.ChunkProcessor;
 import org.rag4j.rag.retrieval.Retriever;
 
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
 /**
- * Mainly for demo purposes, it does not keep the data in a persistent storage. It uses the {@link EuclideanDistance}
- * to calculate the distance between the vectors of the chunks and the question. The embedder is used during indexing
- * and finding to create vector representations from the provided texts.
+ * Mainly for demo purposes, it does not keep the data in a persistent storage, an explicit snapshot can be written and
+ * read back without embedding the chunks again. It uses the euclidean distance to calculate the distance between the
+ * vectors of the chunks and the question. When the embedder produces unit vectors the chunks are ranked by inner
+ * product instead, which gives the same order with less work. The embedder is used during indexing and finding to
+ * create vector representations from the provided texts. By default all vectors are packed into one
+ * {@link VectorSlab}, with product or scalar quantisation configured they are kept as compressed codes. A slot table
+ * maps each slot back to its chunk. During a search only the best candidates are kept in a {@link TopKHeap},
+ * {@link RelevantChunk}s are created for the winners only. Large stores can be scanned in parallel partitions, see
+ * {@link InternalContentStoreConfig}.
+ * <p>Writers are serialised, after every call to {@link #store(List)} an immutable view of the slots is
+ * published. Searches only use the view they start with, so they never wait for a writer. In concurrent mode a
+ * replaced chunk gets a new slot and the old slot is marked as deleted, which means a search never sees a vector that
+ * is being overwritten.</p>
  */
 public class InternalContentStore implements ContentStore, Retriever {
-    private final Map<String, List<Float>> vectorStore;
+    private final VectorStorage vectorStore;
+    private final Map<String, Integer> keySlots;
     private final Map<String, Chunk> dataStore;
+    private final ReentrantLock writeLock;
+    private Chunk[] slotChunks;
+    private BitSet deletedSlots;
+    private volatile ReadView readView;
 
     private final Embedder embedder;
+    private final InternalContentStoreConfig config;
+    private final VectorStorage.Metric metric;
 
     public InternalContentStore(Embedder embedder) {
+        this(embedder, InternalContentStoreConfig.defaults());
+    }
+
+    public InternalContentStore(Embedder embedder, InternalContentStoreConfig config) {
         this.embedder = embedder;
-        this.vectorStore = new HashMap<>();
-        this.dataStore = new HashMap<>();
+        this.config = config;
+        this.vectorStore = createVectorStorage(config);
+        this.metric = embedder.producesNormalizedVectors()
+                ? VectorStorage.Metric.INNER_PRODUCT
+                : VectorStorage.Metric.SQUARED_EUCLIDEAN;
+        this.keySlots = new HashMap<>();
+        this.dataStore = new ConcurrentHashMap<>();
+        this.writeLock = new ReentrantLock();
+        this.slotChunks = new Chunk[0];
+        this.deletedSlots = new BitSet();
+        this.readView = new ReadView(this.vectorStore.view(), this.slotChunks, new BitSet(), 0, 0);
     }
 
     @Override
     public void store(List<Chunk> chunks) {
-        chunks.forEach(chunk -> {
-            String key = extractKey(chunk.getDocumentId(), chunk.getChunkId());
-            String text = chunk.getText();
-            List<Float> vector = embedder.embed(text);
-            this.vectorStore.put(key, vector);
-            this.dataStore.put(key, chunk);
-        });
+        List<EmbeddingVector> vectors = this.embedder.embedAllVectors(chunks.stream().map(Chunk::getText).toList());
+
+        this.writeLock.lock();
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                storeVector(chunks.get(i), vectors.get(i).values());
+            }
+        } finally {
+            publish();
+            this.writeLock.unlock();
+        }
     }
 
     @Override
     public List<RelevantChunk> findRelevantChunks(String question, int maxResults) {
-        return this.findRelevantChunks(question, this.embedder.embed(question), maxResults);
+        return this.findRelevantChunks(question, this.embedder.embedVector(question), maxResults);
     }
 
     @Override
     public List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults) {
-        EuclideanDistance distanceCalculator = new EuclideanDistance();
-        List<RelevantChunk> relevantChunks = new ArrayList<>();
+        return this.findRelevantChunks(question, EmbeddingVector.fromList(vector), maxResults);
+    }
 
-        for (Map.Entry<String, List<Float>> entry : this.vectorStore.entrySet()) {
-            double distance = distanceCalculator.compute(listToArrayWithDouble(vector), listToArrayWithDouble(entry.getValue()));
-            Chunk chunk = this.dataStore.get(entry.getKey());
-            relevantChunks.add(new RelevantChunk(chunk, distance));
-        }
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        ReadView view = this.readView;
+        float[] query = vector.values();
+        view.vectors().checkQuery(query);
+        int count = view.count();
+        int k = Math.min(maxResults, view.liveCount());
+        int candidates = Math.min(view.vectors().candidatesFor(k), view.liveCount());
 
-        relevantChunks.sort(Comparator.comparingDouble(RelevantChunk::getScore));
+        VectorStorage.Scorer scorer = liveScorer(view.vectors().scorer(query, this.metric), view.deleted());
+        TopKHeap heap = useParallelScan(count)
+                ? parallelScan(scorer, candidates, count)
+                : scan(scorer, candidates, 0, count);
 
-        return relevantChunks.subList(0, Math.min(maxResults, relevantChunks.size()));
+        Chunk[] chunks = view.chunks();
+        return LocalStores.toRelevantChunks(view.vectors().rerank(heap, query, k, this.metric), slot -> chunks[slot],
+                this::toReportedScore);
     }
 
     @Override
     public Chunk getChunk(String documentId, String chunkId) {
-        return this.dataStore.get(extractKey(documentId, chunkId));
+        return this.dataStore.get(LocalStores.extractKey(documentId, chunkId));
     }
 
     @Override
@@ -69,11 +119,209 @@ public class InternalContentStore implements ContentStore, Retriever {
         this.dataStore.values().forEach(chunkProcessor::process);
     }
 
-    private static double[] listToArrayWithDouble(List<Float> vector) {
-        return vector.stream().mapToDouble(Float::doubleValue).toArray();
+    /**
+     * Compresses the vectors stored so far when product quantisation or per dimension scalar quantisation is
+     * configured, without waiting for the configured training size to be reached. Does nothing when the vectors are
+     * kept as floats or are already compressed.
+     */
+    public void compressVectors() {
+        this.writeLock.lock();
+        try {
+            if (this.vectorStore instanceof ProductQuantizedStorage productQuantizedStorage) {
+                productQuantizedStorage.train();
+            } else if (this.vectorStore instanceof ScalarQuantizedStorage scalarQuantizedStorage) {
+                scalarQuantizedStorage.train();
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all chunks and their vectors to the provided file, see {@link #writeSnapshot(OutputStream)}.
+     */
+    public void writeSnapshot(Path file) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeSnapshot(out);
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Writes all chunks, including their properties, and their vectors in a compact versioned binary format. The
+     * stream is not closed. A store that keeps only compressed codes cannot be written: restoring the reconstructed
+     * vectors would compress them a second time and lose precision with every backup and restore. Enable
+     * <code>rerank</code> in the quantisation config to keep the exact vectors for snapshots.
+     * @throws LocalStoreException when the store keeps only compressed codes, or a chunk has a property value that
+     * cannot be written as JSON
+     */
+    public void writeSnapshot(OutputStream out) throws IOException {
+        ReadView view = this.readView;
+        if (!view.vectors().keepsExactVectors()) {
+            throw new LocalStoreException("The store keeps only compressed codes, enable rerank in the quantization "
+                    + "config to keep the exact vectors for snapshots");
+        }
+        int[] liveSlots = view.liveSlots();
+        int dimension = liveSlots.length > 0 ? view.vectors().get(liveSlots[0]).length : 0;
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        SnapshotFormat.write(dataOut, dimension, liveSlots.length,
+                i -> view.chunks()[liveSlots[i]], i -> view.vectors().get(liveSlots[i]));
+        dataOut.flush();
+    }
+
+    /**
+     * Reads a snapshot from the provided file, see {@link #readSnapshot(InputStream)}.
+     */
+    public void readSnapshot(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            readSnapshot(in);
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot read snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Stores the chunks and vectors of a snapshot written by {@link #writeSnapshot(OutputStream)}, without calling the
+     * embedder. The whole snapshot is read before the first chunk is stored, a truncated or damaged snapshot fails
+     * without changing the store. Chunks with a key that is already in the store replace the existing chunk, like
+     * {@link #store(List)} does.
+     * @return the number of chunks read from the snapshot
+     */
+    public int readSnapshot(InputStream in) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        int count = SnapshotFormat.read(new DataInputStream(new BufferedInputStream(in)), (chunk, vector) -> {
+            chunks.add(chunk);
+            vectors.add(vector);
+        });
+
+        this.writeLock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                storeVector(chunks.get(i), vectors.get(i));
+            }
+            return count;
+        } finally {
+            publish();
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Hands every stored chunk together with a copy of its vector to the consumer, used by other local stores to
+     * build an index from this store without calling the embedder again.
+     */
+    void loopOverVectors(BiConsumer<Chunk, float[]> consumer) {
+        ReadView view = this.readView;
+        for (int slot : view.liveSlots()) {
+            consumer.accept(view.chunks()[slot], view.vectors().get(slot));
+        }
+    }
+
+    /**
+     * Stores the vector and its chunk, the caller holds the write lock and publishes the result.
+     */
+    private void storeVector(Chunk chunk, float[] vector) {
+        String key = LocalStores.extractKey(chunk.getDocumentId(), chunk.getChunkId());
+        Integer slot = this.keySlots.get(key);
+        if (slot != null && !this.config.isConcurrent()) {
+            this.vectorStore.set(slot, vector);
+            this.slotChunks[slot] = chunk;
+        } else {
+            if (slot != null) {
+                this.deletedSlots.set(slot);
+            }
+            int newSlot = this.vectorStore.add(vector);
+            if (newSlot >= this.slotChunks.length) {
+                this.slotChunks = Arrays.copyOf(this.slotChunks, Math.max(64, this.slotChunks.length * 2));
+            }
+            this.slotChunks[newSlot] = chunk;
+            this.keySlots.put(key, newSlot);
+        }
+        this.dataStore.put(key, chunk);
+    }
+
+    /**
+     * Publishes the current slots to the readers. Deleted slots are always copied, also when there are none yet, so a
+     * published view never changes when the writer marks a slot as deleted.
+     */
+    private void publish() {
+        int count = this.vectorStore.size();
+        BitSet deleted = (BitSet) this.deletedSlots.clone();
+        this.readView = new ReadView(this.vectorStore.view(), this.slotChunks, deleted, count,
+                count - deleted.cardinality());
+    }
+
+    private static VectorStorage.Scorer liveScorer(VectorStorage.Scorer scorer, BitSet deleted) {
+        if (deleted.isEmpty()) {
+            return scorer;
+        }
+        return slot -> deleted.get(slot) ? Double.POSITIVE_INFINITY : scorer.score(slot);
+    }
+
+    private static VectorStorage createVectorStorage(InternalContentStoreConfig config) {
+        if (config.getProductQuantization() != null && config.getScalarQuantization() != null) {
+            throw new IllegalArgumentException("Configure either product quantization or scalar quantization, not both");
+        }
+        if (config.isConcurrent() && (config.getProductQuantization() != null || config.getScalarQuantization() != null)) {
+            throw new IllegalArgumentException("Concurrent mode is only supported for vectors kept as floats");
+        }
+        if (config.getProductQuantization() != null) {
+            return new ProductQuantizedStorage(config.getProductQuantization());
+        }
+        if (config.getScalarQuantization() != null) {
+            return new ScalarQuantizedStorage(config.getScalarQuantization());
+        }
+        return new VectorSlab();
     }
 
-    private static String extractKey(String documentId, String chunkId) {
-        return String.format("%s_%s", documentId, chunkId);
+    private boolean useParallelScan(int count) {
+        return this.config.isParallelScan() && this.config.getPartitions() > 1 && count >= this.config.getParallelThreshold();
+    }
+
+    private static TopKHeap scan(VectorStorage.Scorer scorer, int k, int fromSlot, int toSlot) {
+        TopKHeap heap = new TopKHeap(k);
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            heap.offer(scorer.score(slot), slot);
+        }
+        return heap;
+    }
+
+    private TopKHeap parallelScan(VectorStorage.Scorer scorer, int k, int count) {
+        int partitionSize = (count + this.config.getPartitions() - 1) / this.config.getPartitions();
+
+        List<ForkJoinTask<TopKHeap>> tasks = new ArrayList<>();
+        for (int fromSlot = 0; fromSlot < count; fromSlot += partitionSize) {
+            int from = fromSlot;
+            int to = Math.min(count, fromSlot + partitionSize);
+            tasks.add(this.config.getPool().submit(() -> scan(scorer, k, from, to)));
+        }
+
+        TopKHeap heap = new TopKHeap(k);
+        tasks.forEach(task -> heap.merge(task.join()));
+        return heap;
+    }
+
+    /**
+     * Converts the internal score to the score of a relevant chunk. The euclidean distance is calculated for the
+     * returned chunks only, for unit vectors it follows from the inner product as <code>sqrt(2 - 2 x.q)</code>.
+     */
+    private double toReportedScore(double score) {
+        if (this.metric == VectorStorage.Metric.SQUARED_EUCLIDEAN) {
+            return Math.sqrt(score);
+        }
+        double innerProduct = -score;
+        return this.config.isReportSimilarity() ? innerProduct : Math.sqrt(Math.max(0.0, 2 - 2 * innerProduct));
+    }
+
+    /**
+     * The slots as published by the last writer. The first <code>count</code> slots of the vectors and chunks are
+     * never changed again in concurrent mode.
+     */
+    private record ReadView(VectorStorage vectors, Chunk[] chunks, BitSet deleted, int count, int liveCount) {
+        int[] liveSlots() {
+            return IntStream.range(0, this.count).filter(slot -> !this.deleted.get(slot)).toArray();
+        }
     }
 }
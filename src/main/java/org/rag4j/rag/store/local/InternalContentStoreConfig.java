@@ -0,0 +1,47 @@
+package org.rag4j.rag.store.local;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration of the {@link InternalContentStore}. The defaults give a single-threaded brute-force scan, which is
+ * what you want for the small stores used in demos and tests.
+ * <p>With <code>parallelScan</code> enabled, stores holding at least <code>parallelThreshold</code> vectors are split
+ * into <code>partitions</code> ranges that are scanned on the <code>pool</code>. Each partition keeps its own top-k,
+ * the partial results are merged on the calling thread. Smaller stores are still scanned on the calling thread, for
+ * them the coordination costs more than it saves.</p>
+ * <p>By providing a {@link ProductQuantizationConfig} the vectors are kept as product-quantised codes instead of
+ * floats, which cuts the memory of the vectors 16 to 32 times at the cost of approximate distances. A
+ * {@link ScalarQuantizationConfig} keeps them as int8 values, a quarter of the memory with a smaller loss of
+ * precision. Only one of the two can be configured.</p>
+ * <p>When the embedder produces unit vectors the store ranks by inner product. The score of a relevant chunk is still
+ * the euclidean distance, unless <code>reportSimilarity</code> is enabled, then it is the inner product (the cosine
+ * similarity) and higher is better.</p>
+ * <p>Enable <code>concurrent</code> to call <code>store</code> while other threads search. Replaced chunks then get a
+ * new slot, the old slot is skipped by searches but keeps its memory. Concurrent mode needs the vectors kept as
+ * floats, it cannot be combined with quantisation.</p>
+ */
+@Builder
+@Getter
+public class InternalContentStoreConfig {
+    @Builder.Default
+    private boolean parallelScan = false;
+    @Builder.Default
+    private int parallelThreshold = 20_000;
+    @Builder.Default
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private ProductQuantizationConfig productQuantization;
+    private ScalarQuantizationConfig scalarQuantization;
+    @Builder.Default
+    private boolean reportSimilarity = false;
+    @Builder.Default
+    private boolean concurrent = false;
+
+    public static InternalContentStoreConfig defaults() {
+        return InternalContentStoreConfig.builder().build();
+    }
+}
@@ -0,0 +1,34 @@
+package org.rag4j.rag.store.local;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Parameters of the {@link IvfContentStore}.
+ * <ul>
+ *     <li><code>numberOfLists</code> - the number of k-means centroids, each centroid owns one posting list.</li>
+ *     <li><code>nprobe</code> - the number of lists closest to the question that are scanned. More lists give a better
+ *     recall and slower queries.</li>
+ *     <li><code>iterations</code> - the number of k-means iterations while training.</li>
+ *     <li><code>maxTrainingVectors</code> - larger stores train the centroids on a random sample of this size.</li>
+ *     <li><code>seed</code> - seed for the centroid initialisation and sampling.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class IvfConfig {
+    @Builder.Default
+    private int numberOfLists = 64;
+    @Builder.Default
+    private int nprobe = 8;
+    @Builder.Default
+    private int iterations = 10;
+    @Builder.Default
+    private int maxTrainingVectors = 50_000;
+    @Builder.Default
+    private long seed = 42L;
+
+    public static IvfConfig defaults() {
+        return IvfConfig.builder().build();
+    }
+}
@@ -0,0 +1,219 @@
+package org.rag4j.rag.store.local;
+
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.ChunkProcessor;
+import org.rag4j.rag.retrieval.Retriever;
+import org.rag4j.rag.store.ContentStore;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Local content store using an inverted file (IVF) index. The vectors are clustered with k-means, every chunk is
+ * added to the posting list of its closest centroid. A search only scans the <code>nprobe</code> lists with the
+ * centroids closest to the question, which makes the result approximate. The {@link IvfConfig} contains the
+ * parameters, the {@link org.rag4j.rag.retrieval.quality.ApproximateRetrievalReport} compares the store with the
+ * exact one.</p>
+ * <p>Chunks stored before the first call to {@link #train()} are kept in a separate list that is always scanned.
+ * After training new chunks are assigned to their closest list right away. Calling {@link #train()} again recomputes
+ * the centroids from all stored vectors and rebuilds the lists, which fits a nightly re-index. Use
+ * {@link #fromInternalContentStore(InternalContentStore, Embedder, IvfConfig)} to build the index from vectors that
+ * were already embedded. The store is not thread-safe and does not keep the data in a persistent storage.</p>
+ */
+public class IvfContentStore implements ContentStore, Retriever {
+    private final VectorSlab vectorStore;
+    private final List<String> slotKeys;
+    private final Map<String, Integer> keySlots;
+    private final Map<String, Chunk> dataStore;
+
+    private final Embedder embedder;
+    private final IvfConfig config;
+    private final Random random;
+
+    private float[] centroids;
+    private int numberOfCentroids;
+    /**
+     * Posting lists of slots per centroid, the last list holds the slots that are not assigned to a centroid.
+     */
+    private int[][] postings;
+    private int[] postingSizes;
+    private int[] assignments;
+
+    public IvfContentStore(Embedder embedder) {
+        this(embedder, IvfConfig.defaults());
+    }
+
+    public IvfContentStore(Embedder embedder, IvfConfig config) {
+        this.embedder = embedder;
+        this.config = config;
+        this.random = new Random(config.getSeed());
+
+        this.vectorStore = new VectorSlab();
+        this.slotKeys = new ArrayList<>();
+        this.keySlots = new HashMap<>();
+        this.dataStore = new HashMap<>();
+        this.numberOfCentroids = 0;
+        this.postings = new int[][]{new int[16]};
+        this.postingSizes = new int[1];
+        this.assignments = new int[64];
+    }
+
+    /**
+     * Creates a trained IVF store from the chunks and vectors of an {@link InternalContentStore}, without calling the
+     * embedder for the stored chunks.
+     */
+    public static IvfContentStore fromInternalContentStore(InternalContentStore source, Embedder embedder, IvfConfig config) {
+        IvfContentStore store = new IvfContentStore(embedder, config);
+        source.loopOverVectors(store::add);
+        store.train();
+        return store;
+    }
+
+    @Override
+    public void store(List<Chunk> chunks) {
+        List<EmbeddingVector> vectors = this.embedder.embedAllVectors(chunks.stream().map(Chunk::getText).toList());
+        for (int i = 0; i < chunks.size(); i++) {
+            add(chunks.get(i), vectors.get(i).values());
+        }
+    }
+
+    /**
+     * Trains the centroids on the stored vectors and assigns every vector to the list of its closest centroid. The
+     * number of centroids is limited by the number of stored vectors.
+     */
+    public void train() {
+        int count = this.vectorStore.size();
+        if (count == 0) {
+            return;
+        }
+        int dimension = this.vectorStore.dimension();
+
+        int[] sample = count <= this.config.getMaxTrainingVectors()
+                ? IntStream.range(0, count).toArray()
+                : this.random.ints(0, count).distinct().limit(this.config.getMaxTrainingVectors()).toArray();
+        float[] trainingData = new float[sample.length * dimension];
+        for (int i = 0; i < sample.length; i++) {
+            this.vectorStore.copyTo(sample[i], trainingData, i * dimension);
+        }
+
+        int k = Math.min(this.config.getNumberOfLists(), sample.length);
+        this.centroids = KMeans.train(trainingData, sample.length, dimension, k, this.config.getIterations(), this.random);
+        this.numberOfCentroids = k;
+
+        float[] trained = this.centroids;
+        int[] nearest = IntStream.range(0, count).parallel()
+                .map(slot -> this.vectorStore.nearest(slot, trained, k))
+                .toArray();
+
+        this.postings = new int[k + 1][];
+        this.postingSizes = new int[k + 1];
+        for (int list = 0; list <= k; list++) {
+            this.postings[list] = new int[Math.max(16, 2 * count / (k + 1))];
+        }
+        for (int slot = 0; slot < count; slot++) {
+            appendToList(nearest[slot], slot);
+        }
+    }
+
+    public boolean isTrained() {
+        return this.centroids != null;
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, int maxResults) {
+        return this.findRelevantChunks(question, this.embedder.embedVector(question), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults) {
+        return this.findRelevantChunks(question, EmbeddingVector.fromList(vector), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        float[] query = vector.values();
+        this.vectorStore.checkQuery(query);
+        TopKHeap heap = new TopKHeap(Math.min(maxResults, this.vectorStore.size()));
+
+        if (isTrained()) {
+            int dimension = this.vectorStore.dimension();
+            TopKHeap closestLists = new TopKHeap(Math.min(this.config.getNprobe(), this.numberOfCentroids));
+            for (int c = 0; c < this.numberOfCentroids; c++) {
+                closestLists.offer(KMeans.squaredDistance(this.centroids, c * dimension, query, 0, dimension), c);
+            }
+            for (int list : closestLists.drainSorted(new double[closestLists.size()])) {
+                scanList(list, query, heap);
+            }
+        }
+        scanList(unassignedList(), query, heap);
+
+        return LocalStores.toRelevantChunks(heap, slot -> this.dataStore.get(this.slotKeys.get(slot)), Math::sqrt);
+    }
+
+    @Override
+    public Chunk getChunk(String documentId, String chunkId) {
+        return this.dataStore.get(LocalStores.extractKey(documentId, chunkId));
+    }
+
+    @Override
+    public void loopOverChunks(ChunkProcessor chunkProcessor) {
+        this.dataStore.values().forEach(chunkProcessor::process);
+    }
+
+    private void add(Chunk chunk, float[] vector) {
+        String key = LocalStores.extractKey(chunk.getDocumentId(), chunk.getChunkId());
+        Integer slot = this.keySlots.get(key);
+        if (slot != null) {
+            removeFromList(slot);
+            this.vectorStore.set(slot, vector);
+        } else {
+            slot = this.vectorStore.add(vector);
+            this.keySlots.put(key, slot);
+            this.slotKeys.add(key);
+        }
+        this.dataStore.put(key, chunk);
+
+        int list = isTrained()
+                ? KMeans.nearest(this.centroids, this.numberOfCentroids, vector.length, vector, 0)
+                : unassignedList();
+        appendToList(list, slot);
+    }
+
+    private void scanList(int list, float[] query, TopKHeap heap) {
+        int[] slots = this.postings[list];
+        for (int i = 0; i < this.postingSizes[list]; i++) {
+            heap.offer(this.vectorStore.squaredEuclideanDistance(slots[i], query), slots[i]);
+        }
+    }
+
+    private void appendToList(int list, int slot) {
+        if (this.postingSizes[list] == this.postings[list].length) {
+            this.postings[list] = Arrays.copyOf(this.postings[list], this.postings[list].length * 2);
+        }
+        this.postings[list][this.postingSizes[list]++] = slot;
+
+        if (slot >= this.assignments.length) {
+            this.assignments = Arrays.copyOf(this.assignments, Math.max(slot + 1, this.assignments.length * 2));
+        }
+        this.assignments[slot] = list;
+    }
+
+    private void removeFromList(int slot) {
+        int list = this.assignments[slot];
+        int[] slots = this.postings[list];
+        int last = --this.postingSizes[list];
+        for (int i = 0; i <= last; i++) {
+            if (slots[i] == slot) {
+                slots[i] = slots[last];
+                return;
+            }
+        }
+    }
+
+    private int unassignedList() {
+        return this.postings.length - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package org.rag4j.rag.store.local;
+
+import org.rag4j.util.vector.DistanceKernel;
+import org.rag4j.util.vector.DistanceKernels;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Lloyd's k-means over vectors packed in a flat <code>float[]</code>, vector <code>i</code> occupies
+ * <code>[i * dimension, (i + 1) * dimension)</code>. The centroids are returned in the same layout. Initial centroids
+ * are sampled from the data, a centroid that loses all its vectors is moved to a random vector. The assignment step
+ * runs in parallel over the vectors.
+ */
+final class KMeans {
+    private static final DistanceKernel KERNEL = DistanceKernels.get();
+
+    private KMeans() {
+    }
+
+    static float[] train(float[] data, int count, int dimension, int k, int iterations, Random random) {
+        if (count < k) {
+            throw new IllegalArgumentException(
+                    String.format("Need at least %d vectors to train %d centroids, got %d", k, k, count));
+        }
+
+        float[] centroids = new float[k * dimension];
+        int[] sample = random.ints(0, count).distinct().limit(k).toArray();
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(data, sample[c] * dimension, centroids, c * dimension, dimension);
+        }
+
+        int[] assignments = new int[count];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            float[] current = centroids;
+            IntStream.range(0, count).parallel()
+                    .forEach(i -> assignments[i] = nearest(current, k, dimension, data, i * dimension));
+
+            double[] sums = new double[k * dimension];
+            int[] sizes = new int[k];
+            for (int i = 0; i < count; i++) {
+                int c = assignments[i];
+                sizes[c]++;
+                int offset = i * dimension;
+                int centroidOffset = c * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    sums[centroidOffset + d] += data[offset + d];
+                }
+            }
+
+            float[] updated = new float[k * dimension];
+            for (int c = 0; c < k; c++) {
+                int centroidOffset = c * dimension;
+                if (sizes[c] == 0) {
+                    System.arraycopy(data, random.nextInt(count) * dimension, updated, centroidOffset, dimension);
+                    continue;
+                }
+                for (int d = 0; d < dimension; d++) {
+                    updated[centroidOffset + d] = (float) (sums[centroidOffset + d] / sizes[c]);
+                }
+            }
+            centroids = updated;
+        }
+        return centroids;
+    }
+
+    /**
+     * Returns the index of the centroid closest to the vector that starts at <code>offset</code> in <code>data</code>.
+     */
+    static int nearest(float[] centroids, int k, int dimension, float[] data, int offset) {
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+            double distance = squaredDistance(centroids, c * dimension, data, offset, dimension);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    static double squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        return KERNEL.squaredEuclidean(a, aOffset, b, bOffset, dimension);
+    }
+}
@@ -0,0 +1,11 @@
+package org.rag4j.rag.store.local;
+
+public class LocalStoreException extends RuntimeException {
+    public LocalStoreException(String message) {
+        super(message);
+    }
+
+    public LocalStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
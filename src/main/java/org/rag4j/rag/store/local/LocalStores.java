@@ -0,0 +1,48 @@
+package org.rag4j.rag.store.local;
+
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Helpers shared by the local stores, which all key their chunks the same way and collect results in a
+ * {@link TopKHeap} of slots.
+ */
+final class LocalStores {
+    private LocalStores() {
+    }
+
+    static String extractKey(String documentId, String chunkId) {
+        return String.format("%s_%s", documentId, chunkId);
+    }
+
+    /**
+     * Drains the heap into relevant chunks, best first.
+     * @param chunks     the chunk stored in a slot
+     * @param toDistance converts the score in the heap into the score reported with the chunk
+     */
+    static List<RelevantChunk> toRelevantChunks(TopKHeap heap, IntFunction<Chunk> chunks,
+                                                DoubleUnaryOperator toDistance) {
+        return toRelevantChunks(heap, heap.size(), chunks, toDistance);
+    }
+
+    /**
+     * Drains the heap into at most <code>maxResults</code> relevant chunks, best first.
+     */
+    static List<RelevantChunk> toRelevantChunks(TopKHeap heap, int maxResults, IntFunction<Chunk> chunks,
+                                                DoubleUnaryOperator toDistance) {
+        double[] scores = new double[heap.size()];
+        int[] slots = heap.drainSorted(scores);
+
+        int count = Math.min(maxResults, slots.length);
+        List<RelevantChunk> relevantChunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            relevantChunks.add(new RelevantChunk(chunks.apply(slots[i]), toDistance.applyAsDouble(scores[i])));
+        }
+        return relevantChunks;
+    }
+}
@@ -0,0 +1,259 @@
+package org.rag4j.rag.store.local;
+
+import org.json.JSONObject;
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.ChunkProcessor;
+import org.rag4j.rag.retrieval.Retriever;
+import org.rag4j.rag.store.ContentStore;
+import org.rag4j.util.vector.DistanceKernel;
+import org.rag4j.util.vector.DistanceKernels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * File-backed alternative for the {@link InternalContentStore}. The vectors are written to a memory-mapped file with a
+ * fixed stride, <code>vectors.bin</code>, the chunks to a sidecar with one JSON line per stored chunk,
+ * <code>chunks.jsonl</code>. Both files live in the provided directory. Opening the store on an existing directory
+ * maps the vector file and reads the sidecar, without calling the embedder; the operating system loads the pages of
+ * the vectors when a search touches them.
+ * <p>Storing a chunk with a known key overwrites its vector and appends a new line to the sidecar, the last line of a
+ * slot wins when the store is opened. When the sidecar holds more replaced lines than current ones it is rewritten
+ * with one line per slot, after a store or when the store is opened. Call {@link #close()} to write all changes to
+ * disk.</p>
+ */
+public class MappedContentStore implements ContentStore, Retriever, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedContentStore.class);
+    private static final DistanceKernel KERNEL = DistanceKernels.get();
+    private static final int SCAN_BLOCK = 64;
+
+    static final String VECTOR_FILE = "vectors.bin";
+    static final String CHUNK_FILE = "chunks.jsonl";
+
+    private final MappedVectorFile vectors;
+    private final Path chunkFile;
+    private BufferedWriter chunkWriter;
+    private int chunkLines;
+    private final List<String> slotKeys;
+    private final Map<String, Integer> keySlots;
+    private final Map<String, Chunk> dataStore;
+
+    private final Embedder embedder;
+    private final boolean innerProduct;
+
+    public MappedContentStore(Embedder embedder, Path directory) {
+        this.embedder = embedder;
+        this.innerProduct = embedder.producesNormalizedVectors();
+        this.slotKeys = new ArrayList<>();
+        this.keySlots = new HashMap<>();
+        this.dataStore = new HashMap<>();
+
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            this.vectors = MappedVectorFile.open(directory.resolve(VECTOR_FILE));
+            this.chunkFile = directory.resolve(CHUNK_FILE);
+            readChunks();
+            this.chunkWriter = openChunkWriter();
+            compactChunksWhenNeeded();
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot open the content store in " + directory, e);
+        }
+        LOGGER.info("Opened {} chunks from {} in {} ms", this.slotKeys.size(), directory,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void store(List<Chunk> chunks) {
+        List<EmbeddingVector> embeddings = this.embedder.embedAllVectors(chunks.stream().map(Chunk::getText).toList());
+
+        // The sidecar lines of the batch are written and flushed before the vectors are counted, every counted slot
+        // has a chunk. New keys get the slots after the current ones, in the order they appear in the batch.
+        int[] slots = new int[chunks.size()];
+        Map<String, Integer> newSlots = new HashMap<>();
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                String key = LocalStores.extractKey(chunk.getDocumentId(), chunk.getChunkId());
+                Integer slot = this.keySlots.get(key);
+                if (slot == null) {
+                    slot = newSlots.computeIfAbsent(key, k -> this.vectors.size() + newSlots.size());
+                }
+                slots[i] = slot;
+                writeChunk(slot, chunk);
+            }
+            this.chunkWriter.flush();
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot write the chunks", e);
+        }
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            String key = LocalStores.extractKey(chunk.getDocumentId(), chunk.getChunkId());
+            float[] vector = embeddings.get(i).values();
+            if (slots[i] < this.vectors.size()) {
+                this.vectors.set(slots[i], vector);
+            } else {
+                this.vectors.add(vector);
+                this.keySlots.put(key, slots[i]);
+                this.slotKeys.add(key);
+            }
+            this.dataStore.put(key, chunk);
+        }
+        compactChunksWhenNeeded();
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, int maxResults) {
+        return this.findRelevantChunks(question, this.embedder.embedVector(question), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, List<Float> vector, int maxResults) {
+        return this.findRelevantChunks(question, EmbeddingVector.fromList(vector), maxResults);
+    }
+
+    @Override
+    public List<RelevantChunk> findRelevantChunks(String question, EmbeddingVector vector, int maxResults) {
+        float[] query = vector.values();
+        int count = this.vectors.size();
+        int dimension = this.vectors.dimension();
+        if (count > 0 && query.length != dimension) {
+            throw new IllegalArgumentException(
+                    String.format("Query vector has dimension %d, the store expects %d", query.length, dimension));
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(maxResults, count));
+        float[] block = new float[Math.min(SCAN_BLOCK, Math.max(count, 1)) * dimension];
+        for (int fromSlot = 0; fromSlot < count; fromSlot += SCAN_BLOCK) {
+            int slots = Math.min(SCAN_BLOCK, count - fromSlot);
+            this.vectors.read(fromSlot, slots, block);
+            for (int i = 0; i < slots; i++) {
+                double score = this.innerProduct
+                        ? -KERNEL.dotProduct(block, i * dimension, query, 0, dimension)
+                        : KERNEL.squaredEuclidean(block, i * dimension, query, 0, dimension);
+                heap.offer(score, fromSlot + i);
+            }
+        }
+
+        return LocalStores.toRelevantChunks(heap, slot -> this.dataStore.get(this.slotKeys.get(slot)),
+                score -> this.innerProduct ? Math.sqrt(Math.max(0.0, 2 + 2 * score)) : Math.sqrt(score));
+    }
+
+    @Override
+    public Chunk getChunk(String documentId, String chunkId) {
+        return this.dataStore.get(LocalStores.extractKey(documentId, chunkId));
+    }
+
+    @Override
+    public void loopOverChunks(ChunkProcessor chunkProcessor) {
+        this.dataStore.values().forEach(chunkProcessor::process);
+    }
+
+    /**
+     * Writes the vectors and the chunks to disk and releases the files.
+     */
+    @Override
+    public void close() {
+        try {
+            this.chunkWriter.close();
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot close the chunk file", e);
+        } finally {
+            this.vectors.close();
+        }
+    }
+
+    private void readChunks() throws IOException {
+        int count = this.vectors.size();
+        if (!Files.exists(this.chunkFile)) {
+            if (count > 0) {
+                throw new LocalStoreException("No chunk file " + this.chunkFile + " for the " + count + " stored vectors");
+            }
+            return;
+        }
+        Chunk[] chunks = new Chunk[count];
+        try (BufferedReader reader = Files.newBufferedReader(this.chunkFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                this.chunkLines++;
+                JSONObject json = new JSONObject(line);
+                int slot = json.getInt("slot");
+                // Lines of vectors that never made it into the vector file are ignored
+                if (slot < count) {
+                    chunks[slot] = ChunkJson.fromJson(json);
+                }
+            }
+        }
+        for (int slot = 0; slot < count; slot++) {
+            if (chunks[slot] == null) {
+                throw new LocalStoreException("No chunk found for slot " + slot + " in " + this.chunkFile);
+            }
+            String key = LocalStores.extractKey(chunks[slot].getDocumentId(), chunks[slot].getChunkId());
+            this.slotKeys.add(key);
+            this.keySlots.put(key, slot);
+            this.dataStore.put(key, chunks[slot]);
+        }
+    }
+
+    /**
+     * Writes the line of a chunk to the buffer of the sidecar, the caller flushes it.
+     */
+    private void writeChunk(int slot, Chunk chunk) throws IOException {
+        JSONObject json = ChunkJson.toJson(chunk);
+        json.put("slot", slot);
+        this.chunkWriter.write(json.toString());
+        this.chunkWriter.newLine();
+        this.chunkLines++;
+    }
+
+    /**
+     * Rewrites the sidecar with one line per slot when it holds more replaced lines than current ones. The new file
+     * is written next to the old one and moved over it, a crash leaves one of the two complete files.
+     */
+    private void compactChunksWhenNeeded() {
+        int current = this.slotKeys.size();
+        if (this.chunkLines - current <= current) {
+            return;
+        }
+        Path compacted = this.chunkFile.resolveSibling(CHUNK_FILE + ".compact");
+        try {
+            this.chunkWriter.close();
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (int slot = 0; slot < current; slot++) {
+                    JSONObject json = ChunkJson.toJson(this.dataStore.get(this.slotKeys.get(slot)));
+                    json.put("slot", slot);
+                    writer.write(json.toString());
+                    writer.newLine();
+                }
+            }
+            Files.move(compacted, this.chunkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Compacted {} from {} to {} lines", this.chunkFile, this.chunkLines, current);
+            this.chunkLines = current;
+            this.chunkWriter = openChunkWriter();
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot compact the chunk file " + this.chunkFile, e);
+        }
+    }
+
+    private BufferedWriter openChunkWriter() throws IOException {
+        return Files.newBufferedWriter(this.chunkFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+}
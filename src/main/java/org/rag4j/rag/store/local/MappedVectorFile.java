@@ -0,0 +1,166 @@
+package org.rag4j.rag.store.local;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Vectors in a memory-mapped file with a fixed stride. The file starts with a header of four little-endian ints: a
+ * magic number, the format version, the dimension and the number of stored vectors. The vectors follow as
+ * little-endian floats, the vector in slot <code>i</code> starts at <code>HEADER_BYTES + i * dimension * 4</code>.
+ * The file grows by doubling its capacity, a single mapping limits it to 2 GB.
+ */
+final class MappedVectorFile implements Closeable {
+    static final int MAGIC = 0x52344A56;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private FloatBuffer floats;
+    private int dimension;
+    private int size;
+    private int capacity;
+
+    private MappedVectorFile(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the file, or creates it when it does not exist yet.
+     */
+    static MappedVectorFile open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedVectorFile file = new MappedVectorFile(path, channel);
+            if (channel.size() > 0) {
+                file.readHeader();
+            }
+            return file;
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot open vector file " + path, e);
+        }
+    }
+
+    int add(float[] vector) {
+        checkDimension(vector.length);
+        ensureCapacity(this.size + 1);
+        int slot = this.size;
+        this.floats.put(slot * this.dimension, vector);
+        this.size++;
+        this.buffer.putInt(12, this.size);
+        return slot;
+    }
+
+    void set(int slot, float[] vector) {
+        checkDimension(vector.length);
+        if (slot < 0 || slot >= this.size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " is not in use, size is " + this.size);
+        }
+        this.floats.put(slot * this.dimension, vector);
+    }
+
+    float[] get(int slot) {
+        float[] vector = new float[this.dimension];
+        this.floats.get(slot * this.dimension, vector);
+        return vector;
+    }
+
+    /**
+     * Copies the vectors of <code>count</code> consecutive slots, starting at <code>fromSlot</code>, to the target.
+     */
+    void read(int fromSlot, int count, float[] target) {
+        this.floats.get(fromSlot * this.dimension, target, 0, count * this.dimension);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int dimension() {
+        return this.dimension;
+    }
+
+    /**
+     * Writes the changes in the mapping to the storage device.
+     */
+    void force() {
+        if (this.buffer != null) {
+            this.buffer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            force();
+            this.channel.close();
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot close vector file " + this.path, e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        map(this.channel.size());
+        if (this.buffer.getInt(0) != MAGIC) {
+            throw new LocalStoreException(this.path + " is not a vector file");
+        }
+        if (this.buffer.getInt(4) != VERSION) {
+            throw new LocalStoreException("Unsupported vector file version " + this.buffer.getInt(4));
+        }
+        this.dimension = this.buffer.getInt(8);
+        this.size = this.buffer.getInt(12);
+        this.capacity = this.dimension == 0 ? 0 : (int) ((this.channel.size() - HEADER_BYTES) / (4L * this.dimension));
+    }
+
+    private void checkDimension(int vectorDimension) {
+        if (this.dimension == 0) {
+            if (vectorDimension == 0) {
+                throw new IllegalArgumentException("Cannot store an empty vector");
+            }
+            this.dimension = vectorDimension;
+        } else if (this.dimension != vectorDimension) {
+            throw new IllegalArgumentException(
+                    String.format("Vector has dimension %d, the store expects %d", vectorDimension, this.dimension));
+        }
+    }
+
+    private void ensureCapacity(int requiredSlots) {
+        if (requiredSlots <= this.capacity) {
+            return;
+        }
+        int stride = 4 * this.dimension;
+        long maxSlots = (Integer.MAX_VALUE - HEADER_BYTES) / stride;
+        if (requiredSlots > maxSlots) {
+            throw new LocalStoreException("Vector file cannot grow beyond " + maxSlots + " vectors");
+        }
+        int newCapacity = (int) Math.min(maxSlots, Math.max(requiredSlots, Math.max(INITIAL_CAPACITY, this.capacity * 2L)));
+        try {
+            map(HEADER_BYTES + (long) newCapacity * stride);
+        } catch (IOException e) {
+            throw new LocalStoreException("Cannot grow vector file " + this.path, e);
+        }
+        this.capacity = newCapacity;
+        this.buffer.putInt(0, MAGIC);
+        this.buffer.putInt(4, VERSION);
+        this.buffer.putInt(8, this.dimension);
+        this.buffer.putInt(12, this.size);
+    }
+
+    private void map(long bytes) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.floats = this.buffer.slice(HEADER_BYTES, (int) bytes - HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+    }
+}
@@ -0,0 +1,35 @@
+package org.rag4j.rag.store.local;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Parameters for keeping the vectors of the {@link InternalContentStore} product-quantised.
+ * <ul>
+ *     <li><code>subVectors</code> - the number of parts a vector is cut into, every part is stored as one byte. The
+ *     dimension of the vectors must be a multiple of this number.</li>
+ *     <li><code>trainingSize</code> - vectors are kept as floats until this many are stored, then the codebooks are
+ *     trained on them and all vectors are compressed.</li>
+ *     <li><code>iterations</code> - the number of k-means iterations per codebook.</li>
+ *     <li><code>rerank</code> - keeps the full-precision vectors next to the codes, the best candidates of the
+ *     compressed scan are re-ranked with exact distances. This improves the recall but gives up the memory savings.</li>
+ *     <li><code>rerankFactor</code> - with re-ranking enabled the scan collects this many candidates per result.</li>
+ *     <li><code>seed</code> - seed for the codebook training.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class ProductQuantizationConfig {
+    @Builder.Default
+    private int subVectors = 48;
+    @Builder.Default
+    private int trainingSize = 10_000;
+    @Builder.Default
+    private int iterations = 10;
+    @Builder.Default
+    private boolean rerank = false;
+    @Builder.Default
+    private int rerankFactor = 4;
+    @Builder.Default
+    private long seed = 42L;
+}
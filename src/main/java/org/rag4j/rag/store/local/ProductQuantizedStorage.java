@@ -0,0 +1,152 @@
+package org.rag4j.rag.store.local;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Vector storage that keeps product-quantised codes, see {@link ProductQuantizer}. Until the codebooks are trained
+ * the vectors are kept as floats and searched exactly. Once <code>trainingSize</code> vectors are stored, or
+ * {@link #train()} is called, all vectors are encoded and the floats are released, unless re-ranking is enabled.
+ */
+final class ProductQuantizedStorage implements VectorStorage {
+    private final ProductQuantizationConfig config;
+
+    private VectorSlab fullPrecision;
+    private ProductQuantizer quantizer;
+    private byte[] codes;
+    private int size;
+
+    ProductQuantizedStorage(ProductQuantizationConfig config) {
+        this.config = config;
+        this.fullPrecision = new VectorSlab();
+        this.codes = new byte[0];
+        this.size = 0;
+    }
+
+    /**
+     * Trains the codebooks on the vectors stored so far and encodes them.
+     */
+    void train() {
+        if (isTrained() || this.fullPrecision.size() == 0) {
+            return;
+        }
+        this.quantizer = ProductQuantizer.train(this.fullPrecision, this.config.getSubVectors(),
+                this.config.getIterations(), new Random(this.config.getSeed()));
+
+        int codeSize = this.quantizer.codeSize();
+        this.codes = new byte[Math.max(this.size, 64) * codeSize];
+        for (int slot = 0; slot < this.size; slot++) {
+            this.quantizer.encode(this.fullPrecision.get(slot), this.codes, slot * codeSize);
+        }
+        if (!this.config.isRerank()) {
+            this.fullPrecision = null;
+        }
+    }
+
+    boolean isTrained() {
+        return this.quantizer != null;
+    }
+
+    @Override
+    public int add(float[] vector) {
+        int slot;
+        if (isTrained()) {
+            checkDimension(vector);
+            slot = this.size++;
+            ensureCodeCapacity(this.size);
+            this.quantizer.encode(vector, this.codes, slot * this.quantizer.codeSize());
+            if (this.fullPrecision != null) {
+                this.fullPrecision.add(vector);
+            }
+        } else {
+            slot = this.fullPrecision.add(vector);
+            this.size++;
+            if (this.size >= this.config.getTrainingSize()) {
+                train();
+            }
+        }
+        return slot;
+    }
+
+    @Override
+    public void set(int slot, float[] vector) {
+        if (this.fullPrecision != null) {
+            this.fullPrecision.set(slot, vector);
+        }
+        if (isTrained()) {
+            checkDimension(vector);
+            this.quantizer.encode(vector, this.codes, slot * this.quantizer.codeSize());
+        }
+    }
+
+    @Override
+    public float[] get(int slot) {
+        if (this.fullPrecision != null) {
+            return this.fullPrecision.get(slot);
+        }
+        return this.quantizer.decode(this.codes, slot * this.quantizer.codeSize());
+    }
+
+    @Override
+    public boolean keepsExactVectors() {
+        return this.fullPrecision != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void checkQuery(float[] query) {
+        if (this.size > 0) {
+            checkDimension(query);
+        }
+    }
+
+    @Override
+    public Scorer scorer(float[] query) {
+        if (!isTrained()) {
+            return this.fullPrecision.scorer(query);
+        }
+        float[] table = this.quantizer.distanceTable(query);
+        int codeSize = this.quantizer.codeSize();
+        return slot -> this.quantizer.distance(table, this.codes, slot * codeSize);
+    }
+
+    @Override
+    public Scorer scorer(float[] query, Metric metric) {
+        if (!isTrained()) {
+            return this.fullPrecision.scorer(query, metric);
+        }
+        return VectorStorage.super.scorer(query, metric);
+    }
+
+    @Override
+    public int candidatesFor(int k) {
+        return isTrained() && this.fullPrecision != null ? k * Math.max(1, this.config.getRerankFactor()) : k;
+    }
+
+    @Override
+    public TopKHeap rerank(TopKHeap candidates, float[] query, int k, Metric metric) {
+        if (!isTrained() || this.fullPrecision == null) {
+            return candidates;
+        }
+        return this.fullPrecision.rerankExactly(candidates, query, k, metric);
+    }
+
+    private void checkDimension(float[] vector) {
+        int dimension = this.quantizer != null ? this.quantizer.dimension() : this.fullPrecision.dimension();
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    String.format("Vector has dimension %d, the store expects %d", vector.length, dimension));
+        }
+    }
+
+    private void ensureCodeCapacity(int requiredSlots) {
+        int required = requiredSlots * this.quantizer.codeSize();
+        if (required > this.codes.length) {
+            this.codes = Arrays.copyOf(this.codes, Math.max(required, this.codes.length * 2));
+        }
+    }
+}
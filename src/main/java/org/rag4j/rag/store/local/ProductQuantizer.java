@@ -0,0 +1,118 @@
+package org.rag4j.rag.store.local;
+
+import java.util.Random;
+
+/**
+ * Product quantisation codec. A vector is cut into <code>subVectors</code> parts of equal length, every part is
+ * replaced by the index of its closest centroid in the codebook of that part. With at most 256 centroids per codebook
+ * a part fits in one byte, so a vector of 384 floats with 48 parts shrinks from 1536 to 48 bytes.
+ * <p>Queries are not quantised. For each query a table is computed with the squared distance of every query part to
+ * every centroid of its codebook, after which the distance to a stored vector is the sum of one table lookup per part
+ * (asymmetric distance computation).</p>
+ */
+final class ProductQuantizer {
+    static final int MAX_CENTROIDS = 256;
+
+    private final int dimension;
+    private final int subVectors;
+    private final int subDimension;
+    private final int centroids;
+    /**
+     * Per part the centroids packed in one array, centroid <code>c</code> of a part starts at
+     * <code>c * subDimension</code>.
+     */
+    private final float[][] codebooks;
+
+    private ProductQuantizer(int dimension, int subVectors, int centroids, float[][] codebooks) {
+        this.dimension = dimension;
+        this.subVectors = subVectors;
+        this.subDimension = dimension / subVectors;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Trains the codebooks on the vectors in the provided slab.
+     */
+    static ProductQuantizer train(VectorSlab vectors, int subVectors, int iterations, Random random) {
+        int dimension = vectors.dimension();
+        int count = vectors.size();
+        if (subVectors <= 0 || dimension % subVectors != 0) {
+            throw new IllegalArgumentException(
+                    String.format("Dimension %d cannot be split into %d sub-vectors", dimension, subVectors));
+        }
+        int subDimension = dimension / subVectors;
+        int centroids = Math.min(MAX_CENTROIDS, count);
+
+        float[] vector = new float[dimension];
+        float[][] parts = new float[subVectors][count * subDimension];
+        for (int slot = 0; slot < count; slot++) {
+            vectors.copyTo(slot, vector, 0);
+            for (int m = 0; m < subVectors; m++) {
+                System.arraycopy(vector, m * subDimension, parts[m], slot * subDimension, subDimension);
+            }
+        }
+
+        float[][] codebooks = new float[subVectors][];
+        for (int m = 0; m < subVectors; m++) {
+            codebooks[m] = KMeans.train(parts[m], count, subDimension, centroids, iterations, random);
+        }
+        return new ProductQuantizer(dimension, subVectors, centroids, codebooks);
+    }
+
+    int dimension() {
+        return this.dimension;
+    }
+
+    int codeSize() {
+        return this.subVectors;
+    }
+
+    /**
+     * Writes the codes of the vector to the target array, starting at the offset.
+     */
+    void encode(float[] vector, byte[] target, int offset) {
+        for (int m = 0; m < this.subVectors; m++) {
+            int code = KMeans.nearest(this.codebooks[m], this.centroids, this.subDimension, vector, m * this.subDimension);
+            target[offset + m] = (byte) code;
+        }
+    }
+
+    /**
+     * Reconstructs a vector from the codes that start at the offset.
+     */
+    float[] decode(byte[] codes, int offset) {
+        float[] vector = new float[this.dimension];
+        for (int m = 0; m < this.subVectors; m++) {
+            int code = codes[offset + m] & 0xFF;
+            System.arraycopy(this.codebooks[m], code * this.subDimension, vector, m * this.subDimension, this.subDimension);
+        }
+        return vector;
+    }
+
+    /**
+     * Computes the squared distance of every part of the query to every centroid of the matching codebook.
+     */
+    float[] distanceTable(float[] query) {
+        float[] table = new float[this.subVectors * this.centroids];
+        for (int m = 0; m < this.subVectors; m++) {
+            int queryOffset = m * this.subDimension;
+            for (int c = 0; c < this.centroids; c++) {
+                table[m * this.centroids + c] = (float) KMeans.squaredDistance(
+                        this.codebooks[m], c * this.subDimension, query, queryOffset, this.subDimension);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Approximates the squared distance between the query of the table and the vector with the codes at the offset.
+     */
+    double distance(float[] table, byte[] codes, int offset) {
+        double sum = 0.0;
+        for (int m = 0, tableOffset = 0; m < this.subVectors; m++, tableOffset += this.centroids) {
+            sum += table[tableOffset + (codes[offset + m] & 0xFF)];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,34 @@
+package org.rag4j.rag.store.local;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Parameters for keeping the vectors of the {@link InternalContentStore} as int8 values.
+ * <ul>
+ *     <li><code>calibration</code> - where the min and max values used for the quantisation come from. Per vector
+ *     needs no training, per dimension is calibrated on the first <code>trainingSize</code> vectors.</li>
+ *     <li><code>trainingSize</code> - with per dimension calibration the vectors are kept as floats until this many
+ *     are stored.</li>
+ *     <li><code>rerank</code> - keeps the full-precision vectors next to the int8 values, the best candidates of the
+ *     int8 scan are re-ranked with exact distances. This gives up the memory savings.</li>
+ *     <li><code>rerankFactor</code> - with re-ranking enabled the scan collects this many candidates per result.</li>
+ * </ul>
+ */
+@Builder
+@Getter
+public class ScalarQuantizationConfig {
+    @Builder.Default
+    private Calibration calibration = Calibration.PER_VECTOR;
+    @Builder.Default
+    private int trainingSize = 10_000;
+    @Builder.Default
+    private boolean rerank = false;
+    @Builder.Default
+    private int rerankFactor = 4;
+
+    public enum Calibration {
+        PER_VECTOR,
+        PER_DIMENSION
+    }
+}
@@ -0,0 +1,308 @@
+package org.rag4j.rag.store.local;
+
+import java.util.Arrays;
+
+import static org.rag4j.rag.store.local.ScalarQuantizationConfig.Calibration.PER_VECTOR;
+
+/**
+ * <p>Vector storage that keeps every value as a signed byte, a quarter of the memory of a float. A value
+ * <code>x</code> is stored as <code>q = round((x - min) / scale) - 128</code> with <code>scale = (max - min) / 255</code>,
+ * so <code>x ~ offset + scale * q</code> with <code>offset = min + 128 * scale</code>. The min and max come from the
+ * vector itself (per vector) or from calibration vectors (per dimension).</p>
+ * <p>The squared distance is computed as <code>|x|^2 + |y|^2 - 2 x.y</code>. The norm of every stored vector is kept,
+ * the query is quantised to bytes once per search so the inner product in the scan loop is an integer dot product
+ * of two byte arrays. A few float operations per slot correct for the offsets and scales.</p>
+ */
+final class ScalarQuantizedStorage implements VectorStorage {
+    private final ScalarQuantizationConfig config;
+    private final boolean perVector;
+
+    private VectorSlab fullPrecision;
+    private int dimension;
+    private int size;
+    private boolean calibrated;
+
+    private byte[] codes;
+    private float[] norms;
+    /**
+     * Per vector calibration: offset, scale and sum of the codes of every stored vector.
+     */
+    private float[] offsets;
+    private float[] scales;
+    private int[] codeSums;
+    /**
+     * Per dimension calibration: offset and scale of every dimension.
+     */
+    private float[] dimensionOffsets;
+    private float[] dimensionScales;
+
+    ScalarQuantizedStorage(ScalarQuantizationConfig config) {
+        this.config = config;
+        this.perVector = config.getCalibration() == PER_VECTOR;
+        this.fullPrecision = this.perVector && !config.isRerank() ? null : new VectorSlab();
+        this.calibrated = this.perVector;
+        this.size = 0;
+        this.codes = new byte[0];
+        this.norms = new float[0];
+        this.offsets = new float[0];
+        this.scales = new float[0];
+        this.codeSums = new int[0];
+    }
+
+    /**
+     * Calibrates the per dimension min and max on the vectors stored so far and quantises them.
+     */
+    void train() {
+        if (this.calibrated || this.size == 0) {
+            return;
+        }
+        float[] min = new float[this.dimension];
+        float[] max = new float[this.dimension];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        float[] vector = new float[this.dimension];
+        for (int slot = 0; slot < this.size; slot++) {
+            this.fullPrecision.copyTo(slot, vector, 0);
+            for (int d = 0; d < this.dimension; d++) {
+                min[d] = Math.min(min[d], vector[d]);
+                max[d] = Math.max(max[d], vector[d]);
+            }
+        }
+
+        this.dimensionOffsets = new float[this.dimension];
+        this.dimensionScales = new float[this.dimension];
+        for (int d = 0; d < this.dimension; d++) {
+            float scale = (max[d] - min[d]) / 255f;
+            this.dimensionScales[d] = scale;
+            this.dimensionOffsets[d] = min[d] + 128 * scale;
+        }
+
+        this.calibrated = true;
+        ensureCapacity(this.size);
+        for (int slot = 0; slot < this.size; slot++) {
+            this.fullPrecision.copyTo(slot, vector, 0);
+            encode(slot, vector);
+        }
+        if (!this.config.isRerank()) {
+            this.fullPrecision = null;
+        }
+    }
+
+    @Override
+    public int add(float[] vector) {
+        checkDimension(vector);
+        int slot = this.size++;
+        if (this.fullPrecision != null) {
+            this.fullPrecision.add(vector);
+        }
+        if (this.calibrated) {
+            ensureCapacity(this.size);
+            encode(slot, vector);
+        } else if (this.size >= this.config.getTrainingSize()) {
+            train();
+        }
+        return slot;
+    }
+
+    @Override
+    public void set(int slot, float[] vector) {
+        checkDimension(vector);
+        if (this.fullPrecision != null) {
+            this.fullPrecision.set(slot, vector);
+        }
+        if (this.calibrated) {
+            encode(slot, vector);
+        }
+    }
+
+    @Override
+    public float[] get(int slot) {
+        if (this.fullPrecision != null) {
+            return this.fullPrecision.get(slot);
+        }
+        float[] vector = new float[this.dimension];
+        int codeOffset = slot * this.dimension;
+        for (int d = 0; d < this.dimension; d++) {
+            vector[d] = this.perVector
+                    ? this.offsets[slot] + this.scales[slot] * this.codes[codeOffset + d]
+                    : this.dimensionOffsets[d] + this.dimensionScales[d] * this.codes[codeOffset + d];
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean keepsExactVectors() {
+        return this.fullPrecision != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void checkQuery(float[] query) {
+        if (this.size > 0) {
+            checkDimension(query);
+        }
+    }
+
+    @Override
+    public Scorer scorer(float[] query) {
+        if (!this.calibrated) {
+            return this.fullPrecision.scorer(query);
+        }
+        double queryNorm = 0.0;
+        for (float value : query) {
+            queryNorm += (double) value * value;
+        }
+        double squaredQueryNorm = queryNorm;
+        int d = this.dimension;
+        byte[] queryCodes = new byte[d];
+
+        if (this.perVector) {
+            float[] minMax = minMax(query);
+            float scale = scale(minMax);
+            float offset = minMax[0] + 128 * scale;
+            int querySum = quantize(query, minMax[0], scale, queryCodes);
+            return slot -> {
+                int dot = dot(slot * d, queryCodes);
+                double a = this.offsets[slot];
+                double s = this.scales[slot];
+                double innerProduct = d * a * offset + a * scale * querySum + offset * s * this.codeSums[slot]
+                        + s * scale * dot;
+                return Math.max(0.0, this.norms[slot] + squaredQueryNorm - 2 * innerProduct);
+            };
+        }
+
+        float[] weights = new float[d];
+        double constant = 0.0;
+        float maxWeight = 0f;
+        for (int i = 0; i < d; i++) {
+            weights[i] = this.dimensionScales[i] * query[i];
+            constant += (double) this.dimensionOffsets[i] * query[i];
+            maxWeight = Math.max(maxWeight, Math.abs(weights[i]));
+        }
+        float weightScale = maxWeight > 0 ? maxWeight / 127f : 1f;
+        for (int i = 0; i < d; i++) {
+            queryCodes[i] = (byte) Math.round(weights[i] / weightScale);
+        }
+        double innerProductConstant = constant;
+        return slot -> {
+            double innerProduct = innerProductConstant + (double) weightScale * dot(slot * d, queryCodes);
+            return Math.max(0.0, this.norms[slot] + squaredQueryNorm - 2 * innerProduct);
+        };
+    }
+
+    @Override
+    public Scorer scorer(float[] query, Metric metric) {
+        if (!this.calibrated) {
+            return this.fullPrecision.scorer(query, metric);
+        }
+        return VectorStorage.super.scorer(query, metric);
+    }
+
+    @Override
+    public int candidatesFor(int k) {
+        return this.calibrated && this.fullPrecision != null ? k * Math.max(1, this.config.getRerankFactor()) : k;
+    }
+
+    @Override
+    public TopKHeap rerank(TopKHeap candidates, float[] query, int k, Metric metric) {
+        if (!this.calibrated || this.fullPrecision == null) {
+            return candidates;
+        }
+        return this.fullPrecision.rerankExactly(candidates, query, k, metric);
+    }
+
+    private int dot(int codeOffset, byte[] queryCodes) {
+        int sum = 0;
+        for (int i = 0; i < queryCodes.length; i++) {
+            sum += this.codes[codeOffset + i] * queryCodes[i];
+        }
+        return sum;
+    }
+
+    private void encode(int slot, float[] vector) {
+        int codeOffset = slot * this.dimension;
+        byte[] vectorCodes = new byte[this.dimension];
+        double norm = 0.0;
+
+        if (this.perVector) {
+            float[] minMax = minMax(vector);
+            float scale = scale(minMax);
+            float offset = minMax[0] + 128 * scale;
+            this.codeSums[slot] = quantize(vector, minMax[0], scale, vectorCodes);
+            this.offsets[slot] = offset;
+            this.scales[slot] = scale;
+            for (int d = 0; d < this.dimension; d++) {
+                double value = offset + (double) scale * vectorCodes[d];
+                norm += value * value;
+            }
+        } else {
+            for (int d = 0; d < this.dimension; d++) {
+                float scale = this.dimensionScales[d];
+                int code = scale > 0 ? Math.round((vector[d] - this.dimensionOffsets[d]) / scale) : 0;
+                vectorCodes[d] = (byte) Math.max(-128, Math.min(127, code));
+                double value = this.dimensionOffsets[d] + (double) scale * vectorCodes[d];
+                norm += value * value;
+            }
+        }
+
+        System.arraycopy(vectorCodes, 0, this.codes, codeOffset, this.dimension);
+        this.norms[slot] = (float) norm;
+    }
+
+    /**
+     * Quantises the vector with the provided min and scale into the codes and returns the sum of the codes.
+     */
+    private static int quantize(float[] vector, float min, float scale, byte[] codes) {
+        int sum = 0;
+        for (int i = 0; i < vector.length; i++) {
+            int code = scale > 0 ? Math.round((vector[i] - min) / scale) - 128 : -128;
+            codes[i] = (byte) Math.max(-128, Math.min(127, code));
+            sum += codes[i];
+        }
+        return sum;
+    }
+
+    private static float[] minMax(float[] vector) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float value : vector) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new float[]{min, max};
+    }
+
+    private static float scale(float[] minMax) {
+        return (minMax[1] - minMax[0]) / 255f;
+    }
+
+    private void checkDimension(float[] vector) {
+        if (this.dimension == 0) {
+            if (vector.length == 0) {
+                throw new IllegalArgumentException("Cannot store an empty vector");
+            }
+            this.dimension = vector.length;
+        } else if (vector.length != this.dimension) {
+            throw new IllegalArgumentException(
+                    String.format("Vector has dimension %d, the store expects %d", vector.length, this.dimension));
+        }
+    }
+
+    private void ensureCapacity(int requiredSlots) {
+        if (requiredSlots <= this.norms.length) {
+            return;
+        }
+        int capacity = Math.max(requiredSlots, Math.max(64, this.norms.length * 2));
+        this.codes = Arrays.copyOf(this.codes, capacity * this.dimension);
+        this.norms = Arrays.copyOf(this.norms, capacity);
+        if (this.perVector) {
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.scales = Arrays.copyOf(this.scales, capacity);
+            this.codeSums = Arrays.copyOf(this.codeSums, capacity);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.rag4j.rag.store.local;
+
+import org.json.JSONObject;
+import org.rag4j.rag.model.Chunk;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Binary snapshot of the chunks and vectors of a local store. The snapshot starts with a magic number, the format
+ * version, the dimension and the number of records. Each record holds a chunk followed by its vector: document id,
+ * chunk id, total chunks, text and the properties as a JSON string, then <code>dimension</code> floats. Strings are
+ * written as a length and UTF-8 bytes, a null string as length -1. Records are read one at a time, a snapshot is
+ * never loaded as a whole. The properties change type on the way, see {@link ChunkJson}.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x52344A53;
+    static final int VERSION = 1;
+
+    private SnapshotFormat() {
+    }
+
+    static void write(DataOutputStream out, int dimension, int count, IntFunction<Chunk> chunks,
+                      IntFunction<float[]> vectors) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dimension);
+        out.writeInt(count);
+
+        ByteBuffer vectorBytes = ByteBuffer.allocate(4 * dimension);
+        for (int slot = 0; slot < count; slot++) {
+            Chunk chunk = chunks.apply(slot);
+            writeString(out, chunk.getDocumentId());
+            writeString(out, chunk.getChunkId());
+            out.writeInt(chunk.getTotalChunks());
+            writeString(out, chunk.getText());
+            writeString(out, ChunkJson.propertiesToJson(chunk).toString());
+
+            vectorBytes.clear();
+            vectorBytes.asFloatBuffer().put(vectors.apply(slot));
+            out.write(vectorBytes.array());
+        }
+    }
+
+    /**
+     * Reads the records and hands every chunk with its vector to the consumer.
+     * @return the number of records read
+     */
+    static int read(DataInputStream in, BiConsumer<Chunk, float[]> consumer) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new LocalStoreException("The provided data is not a content store snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new LocalStoreException("Unsupported snapshot version " + version);
+        }
+        int dimension = in.readInt();
+        int count = in.readInt();
+
+        byte[] vectorBytes = new byte[4 * dimension];
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = Chunk.builder()
+                    .documentId(readString(in))
+                    .chunkId(readString(in))
+                    .totalChunks(in.readInt())
+                    .text(readString(in))
+                    .properties(new JSONObject(readString(in)).toMap())
+                    .build();
+
+            in.readFully(vectorBytes);
+            float[] vector = new float[dimension];
+            ByteBuffer.wrap(vectorBytes).asFloatBuffer().get(vector);
+            consumer.accept(chunk, vector);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+package org.rag4j.rag.store.local;
+
+/**
+ * Bounded selection of the <code>k</code> candidates with the lowest score. The candidates are kept as primitive
+ * (score, slot) pairs in a max-heap, the worst candidate sits at the root and is replaced when a better one comes
+ * along. Equal scores are ordered by slot, which keeps the selection deterministic. A scan over <code>n</code>
+ * candidates costs O(n log k) and allocates nothing after construction.
+ */
+final class TopKHeap {
+    private final double[] scores;
+    private final int[] slots;
+    private int size;
+
+    TopKHeap(int k) {
+        this.scores = new double[Math.max(0, k)];
+        this.slots = new int[Math.max(0, k)];
+        this.size = 0;
+    }
+
+    /**
+     * Offers a candidate to the heap, it is only kept if it belongs to the best <code>k</code> seen so far.
+     */
+    void offer(double score, int slot) {
+        if (this.size < this.scores.length) {
+            int i = this.size++;
+            this.scores[i] = score;
+            this.slots[i] = slot;
+            siftUp(i);
+        } else if (this.size > 0 && isBetter(score, slot, this.scores[0], this.slots[0])) {
+            this.scores[0] = score;
+            this.slots[0] = slot;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Adds all candidates of another heap to this one, used to combine the results of partial scans.
+     */
+    void merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.scores[i], other.slots[i]);
+        }
+    }
+
+    /**
+     * The score of the worst candidate in the heap, only meaningful when the heap is not empty.
+     */
+    double worstScore() {
+        return this.scores[0];
+    }
+
+    boolean isFull() {
+        return this.size == this.scores.length;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Empties the heap into an array of slots ordered from best to worst, the scores are written to the provided
+     * array in the same order.
+     * @param sortedScores array of at least {@link #size()} elements that receives the scores
+     * @return the slots ordered by ascending score
+     */
+    int[] drainSorted(double[] sortedScores) {
+        int count = this.size;
+        int[] sortedSlots = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            sortedScores[i] = this.scores[0];
+            sortedSlots[i] = this.slots[0];
+            this.size--;
+            if (this.size > 0) {
+                this.scores[0] = this.scores[this.size];
+                this.slots[0] = this.slots[this.size];
+                siftDown(0);
+            }
+        }
+        return sortedSlots;
+    }
+
+    private void siftUp(int index) {
+        double score = this.scores[index];
+        int slot = this.slots[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBetter(this.scores[parent], this.slots[parent], score, slot)) {
+                break;
+            }
+            this.scores[index] = this.scores[parent];
+            this.slots[index] = this.slots[parent];
+            index = parent;
+        }
+        this.scores[index] = score;
+        this.slots[index] = slot;
+    }
+
+    private void siftDown(int index) {
+        double score = this.scores[index];
+        int slot = this.slots[index];
+        int half = this.size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < this.size && isBetter(this.scores[child], this.slots[child], this.scores[right], this.slots[right])) {
+                child = right;
+            }
+            if (!isBetter(score, slot, this.scores[child], this.slots[child])) {
+                break;
+            }
+            this.scores[index] = this.scores[child];
+            this.slots[index] = this.slots[child];
+            index = child;
+        }
+        this.scores[index] = score;
+        this.slots[index] = slot;
+    }
+
+    private static boolean isBetter(double score, int slot, double otherScore, int otherSlot) {
+        return score < otherScore || (score == otherScore && slot < otherSlot);
+    }
+}
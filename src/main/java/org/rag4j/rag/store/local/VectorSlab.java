@@ -0,0 +1,170 @@
+package org.rag4j.rag.store.local;
+
+import org.rag4j.util.vector.DistanceKernel;
+import org.rag4j.util.vector.DistanceKernels;
+
+import java.util.Arrays;
+
+/**
+ * Packs all vectors of a store into one growable primitive <code>float[]</code>. The vector in slot <code>i</code>
+ * occupies the range <code>[i * dimension, (i + 1) * dimension)</code>, so a brute-force scan walks contiguous memory
+ * and does not allocate anything per candidate. The dimension is fixed by the first vector that is added.
+ */
+final class VectorSlab implements VectorStorage {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final DistanceKernel KERNEL = DistanceKernels.get();
+
+    private float[] data;
+    private int dimension;
+    private int size;
+
+    VectorSlab() {
+        this(new float[0], 0, 0);
+    }
+
+    private VectorSlab(float[] data, int dimension, int size) {
+        this.data = data;
+        this.dimension = dimension;
+        this.size = size;
+    }
+
+    /**
+     * Returns a slab sharing the current array, limited to the slots stored so far. Appending to this slab does not
+     * change the view: new vectors go beyond its size, or into a new array when the slab grows.
+     */
+    @Override
+    public VectorSlab view() {
+        return new VectorSlab(this.data, this.dimension, this.size);
+    }
+
+    /**
+     * Appends the vector to the slab.
+     * @param vector the vector to append
+     * @return the slot the vector is stored in
+     */
+    @Override
+    public int add(float[] vector) {
+        checkDimension(vector.length);
+        ensureCapacity(this.size + 1);
+        int slot = this.size++;
+        System.arraycopy(vector, 0, this.data, slot * this.dimension, this.dimension);
+        return slot;
+    }
+
+    /**
+     * Replaces the vector in an existing slot.
+     * @param slot the slot to overwrite
+     * @param vector the new vector
+     */
+    @Override
+    public void set(int slot, float[] vector) {
+        checkDimension(vector.length);
+        if (slot < 0 || slot >= this.size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " is not in use, size is " + this.size);
+        }
+        System.arraycopy(vector, 0, this.data, slot * this.dimension, this.dimension);
+    }
+
+    @Override
+    public Scorer scorer(float[] query) {
+        return slot -> squaredEuclideanDistance(slot, query);
+    }
+
+    @Override
+    public Scorer scorer(float[] query, Metric metric) {
+        if (metric == Metric.INNER_PRODUCT) {
+            return slot -> -KERNEL.dotProduct(this.data, slot * this.dimension, query, 0, this.dimension);
+        }
+        return scorer(query);
+    }
+
+    /**
+     * Calculates the squared euclidean distance between the vector in the provided slot and the query vector. Ranking
+     * by the squared distance gives the same order as ranking by the distance, without the square root.
+     */
+    double squaredEuclideanDistance(int slot, float[] query) {
+        return KERNEL.squaredEuclidean(this.data, slot * this.dimension, query, 0, this.dimension);
+    }
+
+    /**
+     * Calculates the squared euclidean distance between the vectors in two slots.
+     */
+    double squaredEuclideanDistance(int slot, int otherSlot) {
+        return KERNEL.squaredEuclidean(
+                this.data, slot * this.dimension, this.data, otherSlot * this.dimension, this.dimension);
+    }
+
+    /**
+     * Returns the index of the centroid closest to the vector in the slot, read in place from the slab.
+     */
+    int nearest(int slot, float[] centroids, int k) {
+        return KMeans.nearest(centroids, k, this.dimension, this.data, slot * this.dimension);
+    }
+
+    /**
+     * Re-scores the candidates with the exact score for the query and keeps the best <code>k</code>. Used by
+     * compressed storages that keep the full-precision vectors next to their codes.
+     */
+    TopKHeap rerankExactly(TopKHeap candidates, float[] query, int k, Metric metric) {
+        Scorer scorer = scorer(query, metric);
+        int[] slots = candidates.drainSorted(new double[candidates.size()]);
+        TopKHeap reranked = new TopKHeap(k);
+        for (int slot : slots) {
+            reranked.offer(scorer.score(slot), slot);
+        }
+        return reranked;
+    }
+
+    /**
+     * Copies the vector in the provided slot into the target array, starting at the offset.
+     */
+    void copyTo(int slot, float[] target, int offset) {
+        System.arraycopy(this.data, slot * this.dimension, target, offset, this.dimension);
+    }
+
+    @Override
+    public float[] get(int slot) {
+        return Arrays.copyOfRange(this.data, slot * this.dimension, (slot + 1) * this.dimension);
+    }
+
+    @Override
+    public void checkQuery(float[] query) {
+        if (this.size > 0 && query.length != this.dimension) {
+            throw new IllegalArgumentException(
+                    String.format("Query vector has dimension %d, the store expects %d", query.length, this.dimension));
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    int dimension() {
+        return this.dimension;
+    }
+
+    private void checkDimension(int vectorDimension) {
+        if (this.dimension == 0) {
+            if (vectorDimension == 0) {
+                throw new IllegalArgumentException("Cannot store an empty vector");
+            }
+            this.dimension = vectorDimension;
+        } else if (this.dimension != vectorDimension) {
+            throw new IllegalArgumentException(
+                    String.format("Vector has dimension %d, the store expects %d", vectorDimension, this.dimension));
+        }
+    }
+
+    private void ensureCapacity(int requiredSlots) {
+        long required = (long) requiredSlots * this.dimension;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Vector slab cannot grow beyond " + (Integer.MAX_VALUE - 8) + " floats");
+        }
+        if (required <= this.data.length) {
+            return;
+        }
+        long newLength = Math.max(required, Math.max((long) INITIAL_CAPACITY * this.dimension, this.data.length * 2L));
+        this.data = Arrays.copyOf(this.data, (int) Math.min(newLength, Integer.MAX_VALUE - 8));
+    }
+}
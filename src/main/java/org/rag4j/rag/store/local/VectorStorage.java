@@ -0,0 +1,96 @@
+package org.rag4j.rag.store.local;
+
+/**
+ * Storage of the vectors of the {@link InternalContentStore}, addressed by slot. Implementations decide how the vectors
+ * are kept in memory, for example as plain floats in a {@link VectorSlab} or as compressed codes. Scores are squared
+ * euclidean distances or, for unit vectors, negated inner products; in both cases lower is better. An implementation
+ * that only approximates them can re-rank a larger candidate set with exact scores.
+ */
+interface VectorStorage {
+    /**
+     * Appends the vector and returns the slot it is stored in.
+     */
+    int add(float[] vector);
+
+    /**
+     * Replaces the vector in an existing slot.
+     */
+    void set(int slot, float[] vector);
+
+    /**
+     * Returns a copy of the vector in the slot, compressed storages return the reconstructed vector.
+     */
+    float[] get(int slot);
+
+    /**
+     * Whether {@link #get(int)} returns the vectors exactly as they were stored. Compressed storages only do when they
+     * keep the full-precision vectors next to their codes.
+     */
+    default boolean keepsExactVectors() {
+        return true;
+    }
+
+    int size();
+
+    /**
+     * Verifies the query vector can be compared with the stored vectors.
+     */
+    void checkQuery(float[] query);
+
+    /**
+     * Creates a scorer that calculates the (approximate) squared distance of each slot to the query. The scorer is
+     * meant for one search and may be used from multiple threads at the same time.
+     */
+    Scorer scorer(float[] query);
+
+    /**
+     * Creates a scorer for the provided metric. For unit vectors the negated inner product follows from the squared
+     * distance as <code>|x - q|^2 / 2 - 1</code>, which is what the default does. Storages that can calculate the inner
+     * product directly override this.
+     */
+    default Scorer scorer(float[] query, Metric metric) {
+        Scorer distances = scorer(query);
+        return metric == Metric.INNER_PRODUCT ? slot -> distances.score(slot) / 2 - 1 : distances;
+    }
+
+    /**
+     * The number of candidates to collect during the scan when <code>k</code> results are requested.
+     */
+    default int candidatesFor(int k) {
+        return k;
+    }
+
+    /**
+     * Re-ranks the candidates collected during the scan and returns the best <code>k</code>.
+     */
+    default TopKHeap rerank(TopKHeap candidates, float[] query, int k, Metric metric) {
+        return candidates;
+    }
+
+    /**
+     * The score calculated by a {@link Scorer}.
+     */
+    enum Metric {
+        /**
+         * The squared euclidean distance.
+         */
+        SQUARED_EUCLIDEAN,
+        /**
+         * The negated inner product, only meaningful for unit vectors.
+         */
+        INNER_PRODUCT
+    }
+
+    /**
+     * Returns a view of the slots stored so far that stays valid while vectors are appended. Storages that cannot
+     * provide such a view return themselves, they do not support concurrent reads and writes.
+     */
+    default VectorStorage view() {
+        return this;
+    }
+
+    @FunctionalInterface
+    interface Scorer {
+        double score(int slot);
+    }
+}
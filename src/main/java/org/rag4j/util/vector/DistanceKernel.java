@@ -0,0 +1,38 @@
+package org.rag4j.util.vector;
+
+/**
+ * Distance and similarity calculations between two float vectors. The vectors are addressed by array and offset, which
+ * makes it possible to compare vectors that are packed into one large array without copying them. Obtain the kernel
+ * that fits the running JVM through {@link DistanceKernels#get()}.
+ * <p>The scalar kernel sums in <code>double</code>, like the stores did before the kernels existed. The Vector API
+ * kernel sums in <code>float</code> lanes, its results can differ in the last digits, which can swap the order of
+ * results with (almost) the same score.</p>
+ */
+public interface DistanceKernel {
+    /**
+     * Calculates the squared euclidean distance between the two vectors.
+     */
+    double squaredEuclidean(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Calculates the inner product of the two vectors.
+     */
+    double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Calculates the cosine similarity of the two vectors, 0 when one of them has no length.
+     */
+    double cosineSimilarity(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    default double squaredEuclidean(float[] a, float[] b) {
+        return squaredEuclidean(a, 0, b, 0, a.length);
+    }
+
+    default double dotProduct(float[] a, float[] b) {
+        return dotProduct(a, 0, b, 0, a.length);
+    }
+
+    default double cosineSimilarity(float[] a, float[] b) {
+        return cosineSimilarity(a, 0, b, 0, a.length);
+    }
+}
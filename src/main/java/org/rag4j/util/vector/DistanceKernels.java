@@ -0,0 +1,56 @@
+package org.rag4j.util.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * Selects the {@link DistanceKernel} once at startup. The Vector API kernel is used when the JVM runs with
+ * <code>--add-modules jdk.incubator.vector</code>, otherwise the scalar kernel. The choice can be forced with the
+ * system property <code>rag4j.distance.kernel</code> set to <code>scalar</code> or <code>vector</code>.
+ */
+public final class DistanceKernels {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistanceKernels.class);
+
+    public static final String KERNEL_PROPERTY = "rag4j.distance.kernel";
+
+    private static final DistanceKernel DEFAULT_KERNEL = select(System.getProperty(KERNEL_PROPERTY, "vector"));
+
+    private DistanceKernels() {
+    }
+
+    /**
+     * @return the kernel selected for this JVM
+     */
+    public static DistanceKernel get() {
+        return DEFAULT_KERNEL;
+    }
+
+    public static DistanceKernel scalar() {
+        return ScalarDistanceKernel.INSTANCE;
+    }
+
+    /**
+     * @return the Vector API kernel, empty when the incubator module is not available
+     */
+    public static Optional<DistanceKernel> vectorApi() {
+        try {
+            return Optional.of(new VectorApiDistanceKernel());
+        } catch (LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param preference <code>scalar</code> for the scalar kernel, anything else for the Vector API kernel when it is
+     *                   available
+     */
+    static DistanceKernel select(String preference) {
+        DistanceKernel kernel = "scalar".equalsIgnoreCase(preference)
+                ? scalar()
+                : vectorApi().orElseGet(DistanceKernels::scalar);
+        LOGGER.debug("Using the {} distance kernel", kernel);
+        return kernel;
+    }
+}
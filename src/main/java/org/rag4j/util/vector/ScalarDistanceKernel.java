@@ -0,0 +1,58 @@
+package org.rag4j.util.vector;
+
+/**
+ * Plain Java implementation of the {@link DistanceKernel}, used when the Vector API is not available. The sums are
+ * calculated in <code>double</code>.
+ */
+final class ScalarDistanceKernel implements DistanceKernel {
+    static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+    private ScalarDistanceKernel() {
+    }
+
+    @Override
+    public double squaredEuclidean(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            double diff = (double) a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            sum += (double) a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double cosineSimilarity(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < length; i++) {
+            double valueA = a[aOffset + i];
+            double valueB = b[bOffset + i];
+            dot += valueA * valueB;
+            normA += valueA * valueA;
+            normB += valueB * valueB;
+        }
+        return cosine(dot, normA, normB);
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+
+    static double cosine(double dot, double squaredNormA, double squaredNormB) {
+        if (squaredNormA == 0.0 || squaredNormB == 0.0) {
+            return 0.0;
+        }
+        return dot / Math.sqrt(squaredNormA * squaredNormB);
+    }
+}
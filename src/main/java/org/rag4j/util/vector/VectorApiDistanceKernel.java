@@ -0,0 +1,81 @@
+package org.rag4j.util.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of the {@link DistanceKernel} using the SIMD instructions of the incubating Vector API. The JVM has to
+ * be started with <code>--add-modules jdk.incubator.vector</code>, without it loading this class fails and
+ * {@link DistanceKernels} falls back to the scalar kernel. The lanes sum in <code>float</code>, the result is widened
+ * to <code>double</code>.
+ */
+final class VectorApiDistanceKernel implements DistanceKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public double squaredEuclidean(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+            sum = diff.fma(diff, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            result += diff * diff;
+        }
+        return result;
+    }
+
+    @Override
+    public double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            sum = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public double cosineSimilarity(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector dot = FloatVector.zero(SPECIES);
+        FloatVector normA = FloatVector.zero(SPECIES);
+        FloatVector normB = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector valueA = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector valueB = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            dot = valueA.fma(valueB, dot);
+            normA = valueA.fma(valueA, normA);
+            normB = valueB.fma(valueB, normB);
+        }
+        float dotResult = dot.reduceLanes(VectorOperators.ADD);
+        float normAResult = normA.reduceLanes(VectorOperators.ADD);
+        float normBResult = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float valueA = a[aOffset + i];
+            float valueB = b[bOffset + i];
+            dotResult += valueA * valueB;
+            normAResult += valueA * valueA;
+            normBResult += valueB * valueB;
+        }
+        return ScalarDistanceKernel.cosine(dotResult, normAResult, normBResult);
+    }
+
+    @Override
+    public String toString() {
+        return "vector-api(" + SPECIES.vectorBitSize() + " bits)";
+    }
+}
@@ -0,0 +1,39 @@
+package org.rag4j.integrations.openai;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.models.Embeddings;
+import com.azure.ai.openai.models.EmbeddingsOptions;
+import com.azure.json.JsonProviders;
+import com.azure.json.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OpenAIEmbedderTest {
+
+    @Test
+    public void embedAllShouldSendOneRequestAndKeepTheOrderOfTheTexts() throws IOException {
+        OpenAIClient client = mock(OpenAIClient.class);
+        // The response lists the items out of order, the prompt index links them to the texts
+        String response = """
+                {"data": [
+                    {"embedding": [0.0, 1.0], "index": 1},
+                    {"embedding": [1.0, 0.0], "index": 0}
+                ], "usage": {"prompt_tokens": 4, "total_tokens": 4}}
+                """;
+        try (JsonReader reader = JsonProviders.createReader(response)) {
+            when(client.getEmbeddings(eq("model"), any(EmbeddingsOptions.class))).thenReturn(Embeddings.fromJson(reader));
+        }
+
+        List<List<Float>> embeddings = new OpenAIEmbedder(client, "model").embedAll(List.of("first", "second"));
+
+        assertEquals(List.of(List.of(1.0f, 0.0f), List.of(0.0f, 1.0f)), embeddings);
+        verify(client, times(1)).getEmbeddings(eq("model"), any(EmbeddingsOptions.class));
+    }
+}
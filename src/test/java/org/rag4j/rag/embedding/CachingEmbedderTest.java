@@ -0,0 +1,124 @@
+package org.rag4j.rag.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingEmbedderTest {
+
+    @Test
+    void shouldEmbedARepeatedTextOnce() {
+        CountingEmbedder counting = new CountingEmbedder("model-a");
+        CachingEmbedder embedder = new CachingEmbedder(counting);
+
+        List<Float> first = embedder.embed("what is rag4j");
+        List<Float> second = embedder.embed("what is rag4j");
+
+        assertEquals(first, second);
+        assertEquals(List.of(List.of("what is rag4j")), counting.calls);
+        assertEquals(new CachingEmbedder.CacheStatistics(1, 0, 1, 0), embedder.getStatistics());
+        assertEquals(0.5, embedder.getStatistics().hitRatio(), 1e-9);
+    }
+
+    @Test
+    void shouldOnlyPassMissingTextsToTheEmbedderOnce() {
+        CountingEmbedder counting = new CountingEmbedder("model-a");
+        CachingEmbedder embedder = new CachingEmbedder(counting);
+        embedder.embed("b");
+
+        List<EmbeddingVector> embeddings = embedder.embedAllVectors(List.of("aa", "b", "aa", "cccc"));
+
+        assertEquals(List.of(2f, 1f, 2f, 4f), embeddings.stream().map(e -> e.get(0)).toList());
+        assertEquals(List.of(List.of("b"), List.of("aa", "cccc")), counting.calls);
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedEmbedding() {
+        CountingEmbedder counting = new CountingEmbedder("model-a");
+        CachingEmbedder embedder = new CachingEmbedder(counting, CachingEmbedderConfig.builder().maxEntries(2).build());
+        embedder.embed("a");
+        embedder.embed("b");
+        embedder.embed("a");
+        embedder.embed("c");
+
+        embedder.embed("a");
+        embedder.embed("b");
+
+        assertEquals(List.of(List.of("a"), List.of("b"), List.of("c"), List.of("b")), counting.calls);
+        assertEquals(2, embedder.getStatistics().evictions());
+    }
+
+    @Test
+    void shouldReadEmbeddingsFromTheStoreAfterRestart(@TempDir Path directory) {
+        CachingEmbedderConfig config = CachingEmbedderConfig.builder()
+                .embeddingStore(new DirectoryEmbeddingStore(directory))
+                .build();
+        new CachingEmbedder(new CountingEmbedder("model-a"), config).embed("persisted");
+
+        CountingEmbedder counting = new CountingEmbedder("model-a");
+        CachingEmbedder restarted = new CachingEmbedder(counting, config);
+
+        assertEquals(List.of(9f), restarted.embed("persisted"));
+        assertEquals(List.of(9f), restarted.embed("persisted"));
+        assertTrue(counting.calls.isEmpty());
+        assertEquals(new CachingEmbedder.CacheStatistics(1, 1, 0, 0), restarted.getStatistics());
+    }
+
+    @Test
+    void shouldKeepEmbeddingsOfDifferentModelsApart(@TempDir Path directory) {
+        CachingEmbedderConfig config = CachingEmbedderConfig.builder()
+                .embeddingStore(new DirectoryEmbeddingStore(directory))
+                .build();
+        new CachingEmbedder(new CountingEmbedder("model-a"), config).embed("text");
+
+        CountingEmbedder otherModel = new CountingEmbedder("model-b");
+        new CachingEmbedder(otherModel, config).embed("text");
+
+        assertEquals(List.of(List.of("text")), otherModel.calls);
+    }
+
+    @Test
+    void shouldShareEmbeddingsOfTextsThatOnlyDifferInWhitespace() {
+        CountingEmbedder counting = new CountingEmbedder("model-a");
+        CachingEmbedder embedder = new CachingEmbedder(counting,
+                CachingEmbedderConfig.builder().normalizeText(true).build());
+
+        embedder.embed(" a  chunk\nof text ");
+        embedder.embed("a chunk of\ttext");
+
+        assertEquals(List.of(List.of(" a  chunk\nof text ")), counting.calls);
+    }
+
+    /**
+     * Embeds a text as its length and records the texts of every call.
+     */
+    private static class CountingEmbedder implements Embedder {
+        private final String identifier;
+        private final List<List<String>> calls = new ArrayList<>();
+
+        CountingEmbedder(String identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public List<Float> embed(String text) {
+            return List.of((float) text.length());
+        }
+
+        @Override
+        public List<List<Float>> embedAll(List<String> texts) {
+            calls.add(texts);
+            return texts.stream().map(this::embed).toList();
+        }
+
+        @Override
+        public String identifier() {
+            return identifier;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.rag4j.rag.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryEmbeddingStoreTest {
+
+    @Test
+    void shouldReturnStoredEmbeddings(@TempDir Path directory) {
+        DirectoryEmbeddingStore store = new DirectoryEmbeddingStore(directory);
+        store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+        store.put(key(1), EmbeddingVector.of(new float[]{4f, 5f, 6f}));
+
+        DirectoryEmbeddingStore reopened = new DirectoryEmbeddingStore(directory);
+        assertEquals(EmbeddingVector.of(new float[]{4f, 5f, 6f}), reopened.get(key(1)));
+        assertNull(reopened.get(key(2)));
+    }
+
+    @Test
+    void shouldIgnoreAFileWithADimensionItDoesNotHold(@TempDir Path directory) throws IOException {
+        DirectoryEmbeddingStore store = new DirectoryEmbeddingStore(directory);
+        store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+        try (FileChannel channel = FileChannel.open(file(directory, key(1)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 4);
+        }
+
+        assertNull(store.get(key(1)));
+    }
+
+    @Test
+    void shouldIgnoreATruncatedFile(@TempDir Path directory) throws IOException {
+        DirectoryEmbeddingStore store = new DirectoryEmbeddingStore(directory);
+        store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+        try (FileChannel channel = FileChannel.open(file(directory, key(1)), StandardOpenOption.WRITE)) {
+            channel.truncate(6);
+        }
+
+        assertNull(store.get(key(1)));
+        store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+        assertEquals(EmbeddingVector.of(new float[]{1f, 2f, 3f}), store.get(key(1)));
+    }
+
+    @Test
+    void shouldThrowWhenAnEmbeddingCannotBeWritten(@TempDir Path directory) throws IOException {
+        Path blocked = directory.resolve("blocked");
+        Files.writeString(blocked, "not a directory");
+        DirectoryEmbeddingStore store = new DirectoryEmbeddingStore(blocked);
+
+        assertThrows(UncheckedIOException.class, () -> store.put(key(1), EmbeddingVector.of(new float[]{1f})));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DirectoryEmbeddingStore(directory).put(key(2), EmbeddingVector.of(new float[0])));
+    }
+
+    private static Path file(Path directory, String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".vec");
+    }
+
+    private static String key(int value) {
+        byte[] key = new byte[32];
+        key[0] = (byte) value;
+        key[31] = (byte) value;
+        return HexFormat.of().formatHex(key);
+    }
+}
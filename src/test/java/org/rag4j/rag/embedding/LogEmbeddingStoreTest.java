@@ -0,0 +1,142 @@
+package org.rag4j.rag.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogEmbeddingStoreTest {
+
+    @Test
+    void shouldReturnStoredEmbeddingsAfterReopening(@TempDir Path directory) {
+        Path file = directory.resolve("embeddings.log");
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+            store.put(key(2), EmbeddingVector.of(new float[]{4f, 5f, 6f}));
+            store.put(key(1), EmbeddingVector.of(new float[]{7f, 8f, 9f}));
+        }
+
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            assertEquals(2, store.size());
+            assertEquals(EmbeddingVector.of(new float[]{7f, 8f, 9f}), store.get(key(1)));
+            assertEquals(EmbeddingVector.of(new float[]{4f, 5f, 6f}), store.get(key(2)));
+            assertNull(store.get(key(3)));
+        }
+    }
+
+    @Test
+    void shouldCutOffAnIncompleteRecord(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("embeddings.log");
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+            store.put(key(2), EmbeddingVector.of(new float[]{4f, 5f, 6f}));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            assertEquals(1, store.size());
+            assertNull(store.get(key(2)));
+            store.put(key(3), EmbeddingVector.of(new float[]{1f}));
+        }
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            assertEquals(EmbeddingVector.of(new float[]{1f, 2f, 3f}), store.get(key(1)));
+            assertEquals(EmbeddingVector.of(new float[]{1f}), store.get(key(3)));
+        }
+    }
+
+    @Test
+    void shouldOnlyEmbedNewChunksWhenIndexingAgain(@TempDir Path directory) {
+        Path file = directory.resolve("embeddings.log");
+        int[] embedded = new int[1];
+        Embedder counting = text -> {
+            embedded[0]++;
+            return List.of((float) text.length());
+        };
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            new CachingEmbedder(counting, CachingEmbedderConfig.builder().embeddingStore(store).build())
+                    .embedAll(List.of("one", "two", "three"));
+        }
+
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            CachingEmbedder embedder = new CachingEmbedder(counting,
+                    CachingEmbedderConfig.builder().embeddingStore(store).build());
+            embedder.embedAll(List.of("one", "two", "changed three"));
+
+            assertEquals(4, embedded[0]);
+            assertEquals(2, embedder.getStatistics().storeHits());
+        }
+    }
+
+    @Test
+    void shouldRejectAFileThatIsNotAnEmbeddingStore(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.writeString(file, "not an embedding store");
+
+        assertThrows(UncheckedIOException.class, () -> new LogEmbeddingStore(file));
+    }
+
+    @Test
+    void shouldCutOffARecordThatDoesNotMatchItsChecksum(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("embeddings.log");
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            store.put(key(1), EmbeddingVector.of(new float[]{1f, 2f, 3f}));
+            store.put(key(2), EmbeddingVector.of(new float[]{4f, 5f, 6f}));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Changes a float of the second record
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), size - 6);
+        }
+
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            assertEquals(1, store.size());
+            assertEquals(EmbeddingVector.of(new float[]{1f, 2f, 3f}), store.get(key(1)));
+            assertNull(store.get(key(2)));
+        }
+        assertTrue(Files.size(file) < size);
+    }
+
+    @Test
+    void shouldRejectASecondStoreOnTheSameFile(@TempDir Path directory) {
+        Path file = directory.resolve("embeddings.log");
+        try (LogEmbeddingStore ignored = new LogEmbeddingStore(file)) {
+            assertThrows(IllegalStateException.class, () -> new LogEmbeddingStore(file));
+        }
+
+        try (LogEmbeddingStore store = new LogEmbeddingStore(file)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void shouldRejectEmbeddingsWithADimensionTheFileCannotHold(@TempDir Path directory) {
+        try (LogEmbeddingStore store = new LogEmbeddingStore(directory.resolve("embeddings.log"))) {
+            assertThrows(IllegalArgumentException.class, () -> store.put(key(1), EmbeddingVector.of(new float[0])));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.put(key(2), EmbeddingVector.of(new float[LogEmbeddingStore.MAX_DIMENSION + 1])));
+            store.put(key(3), EmbeddingVector.of(new float[]{1f}));
+
+            assertEquals(1, store.size());
+        }
+    }
+
+    private static String key(int value) {
+        byte[] key = new byte[32];
+        key[0] = (byte) value;
+        key[31] = (byte) value;
+        return HexFormat.of().formatHex(key);
+    }
+}
@@ -0,0 +1,180 @@
+package org.rag4j.rag.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledEmbedderTest {
+
+    @Test
+    void shouldReturnEmbeddingsInTheOrderOfTheTexts() {
+        try (PooledEmbedder embedder = new PooledEmbedder(RecordingEmbedder::new,
+                PooledEmbedderConfig.builder().poolSize(3).maxBatchSize(2).build())) {
+            List<EmbeddingVector> embeddings = embedder.embedAllVectors(List.of("a", "bb", "ccc", "dddd", "eeeee"));
+
+            assertEquals(List.of(1f, 2f, 3f, 4f, 5f), embeddings.stream().map(e -> e.get(0)).toList());
+            assertEquals(List.of(3f), embedder.embed("xyz"));
+        }
+    }
+
+    @Test
+    void shouldCombineConcurrentRequestsIntoOneBatch() throws Exception {
+        RecordingEmbedder recorder = new RecordingEmbedder();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (PooledEmbedder embedder = new PooledEmbedder(() -> recorder,
+                PooledEmbedderConfig.builder().poolSize(1).batchWindowMillis(500).build())) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<EmbeddingVector>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String text = "x".repeat(i + 1);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return embedder.embedVector(text);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < threads; i++) {
+                assertEquals(i + 1, futures.get(i).get().get(0));
+            }
+            assertTrue(recorder.batchSizes.size() < threads, "Expected batches, got " + recorder.batchSizes);
+            assertEquals(threads, recorder.batchSizes.stream().mapToInt(Integer::intValue).sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldPassFailuresToTheCaller() {
+        Embedder failing = text -> {
+            throw new IllegalArgumentException("cannot embed " + text);
+        };
+        try (PooledEmbedder embedder = new PooledEmbedder(() -> failing)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> embedder.embed("text"));
+            assertEquals("cannot embed text", e.getMessage());
+        }
+    }
+
+    @Test
+    void shouldRejectTextsAfterClose() {
+        PooledEmbedder embedder = new PooledEmbedder(RecordingEmbedder::new);
+        embedder.close();
+
+        assertThrows(IllegalStateException.class, () -> embedder.embed("text"));
+    }
+
+    @Test
+    void shouldPassErrorsToTheCaller() {
+        Embedder failing = text -> {
+            throw new OutOfMemoryError("no room for " + text);
+        };
+        try (PooledEmbedder embedder = new PooledEmbedder(() -> failing)) {
+            assertThrows(OutOfMemoryError.class, () -> embedder.embed("text"));
+        }
+    }
+
+    @Test
+    void shouldNeverLeaveACallerWaitingWhenClosing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                // A slow embedder keeps the queue full, so callers wait for room in the queue when it is closed
+                PooledEmbedder embedder = new PooledEmbedder(() -> text -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    return List.of(1f);
+                }, PooledEmbedderConfig.builder().poolSize(2).maxBatchSize(1).queueCapacity(2).build());
+                List<Future<?>> callers = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    callers.add(executor.submit(() -> {
+                        try {
+                            while (true) {
+                                embedder.embed("text");
+                            }
+                        } catch (IllegalStateException e) {
+                            return null;
+                        }
+                    }));
+                }
+                embedder.close();
+
+                for (Future<?> caller : callers) {
+                    caller.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCloseThePooledEmbedders() {
+        List<ClosingEmbedder> created = new ArrayList<>();
+        PooledEmbedder embedder = new PooledEmbedder(() -> {
+            ClosingEmbedder closing = new ClosingEmbedder();
+            created.add(closing);
+            return closing;
+        }, PooledEmbedderConfig.builder().poolSize(3).build());
+
+        embedder.close();
+
+        assertEquals(3, created.size());
+        assertTrue(created.stream().allMatch(closing -> closing.closed));
+    }
+
+    @Test
+    void shouldCloseTheCreatedEmbeddersWhenTheFactoryFails() {
+        List<ClosingEmbedder> created = new ArrayList<>();
+        Supplier<Embedder> factory = () -> {
+            if (created.size() == 2) {
+                throw new IllegalStateException("no more sessions");
+            }
+            ClosingEmbedder closing = new ClosingEmbedder();
+            created.add(closing);
+            return closing;
+        };
+
+        assertThrows(IllegalStateException.class,
+                () -> new PooledEmbedder(factory, PooledEmbedderConfig.builder().poolSize(3).build()));
+        assertEquals(2, created.size());
+        assertTrue(created.stream().allMatch(closing -> closing.closed));
+    }
+
+    private static class ClosingEmbedder extends RecordingEmbedder implements AutoCloseable {
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Embeds a text as its length and records the size of every batch.
+     */
+    private static class RecordingEmbedder implements Embedder {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public List<Float> embed(String text) {
+            return List.of((float) text.length());
+        }
+
+        @Override
+        public List<List<Float>> embedAll(List<String> texts) {
+            batchSizes.add(texts.size());
+            return texts.stream().map(this::embed).toList();
+        }
+    }
+}
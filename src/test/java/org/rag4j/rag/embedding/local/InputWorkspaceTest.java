@@ -0,0 +1,61 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputWorkspaceTest {
+
+    @Test
+    void shouldReuseTheBuffersUntilABatchDoesNotFit() {
+        InputWorkspace workspace = new InputWorkspace(8, 64);
+        LongBuffer inputIds = workspace.inputIds(6);
+
+        assertTrue(inputIds.isDirect());
+        assertEquals(ByteOrder.nativeOrder(), inputIds.order());
+        assertEquals(6, inputIds.remaining());
+        assertSame(inputIds, workspace.inputIds(8));
+
+        workspace.ensureCapacity(9);
+
+        assertEquals(16, workspace.capacity());
+        assertNotSame(inputIds, workspace.inputIds(9));
+    }
+
+    @Test
+    void shouldNotGrowTheOutputBeyondTheMaximum() {
+        InputWorkspace workspace = new InputWorkspace(8, 100);
+        FloatBuffer output = workspace.output(60);
+
+        assertTrue(output.isDirect());
+        assertEquals(60, output.remaining());
+        assertEquals(100, workspace.output(61).capacity());
+        assertTrue(workspace.fitsOutput(100));
+        assertFalse(workspace.fitsOutput(101));
+        assertThrows(IllegalArgumentException.class, () -> workspace.output(101));
+    }
+
+    @Test
+    void shouldCreateTensorsOnTheWorkspaceBuffers() throws OrtException {
+        InputWorkspace workspace = new InputWorkspace(8, 64);
+        LongBuffer inputIds = workspace.inputIds(6);
+        for (int i = 0; i < 6; i++) {
+            inputIds.put(i, 100 + i);
+        }
+        long[] shape = {2, 3};
+
+        OrtEnvironment environment = OrtEnvironment.getEnvironment();
+        try (OnnxTensor ids = OnnxTensor.createTensor(environment, inputIds, shape);
+             OnnxTensor types = OnnxTensor.createTensor(environment, workspace.tokenTypeIds(6), shape)) {
+            assertArrayEquals(new long[][]{{100, 101, 102}, {103, 104, 105}}, (long[][]) ids.getValue());
+            assertArrayEquals(new long[][]{{0, 0, 0}, {0, 0, 0}}, (long[][]) types.getValue());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnnxBertBiEncoderTest {
+    private static final WordPieceTokenizer TOKENIZER = WordPieceTokenizer.fromResource("/onnx/bert-vocabulary-en.txt");
+    private static final List<String> TEXTS =
+            List.of("A longer text, so the other one is padded in the batch.", "Short text");
+
+    @Test
+    void shouldGroupSequencesOfSimilarLengthWhenSorting() {
+        int[] lengths = {50, 3, 48, 4, 5, 51};
+
+        List<int[]> batches = OnnxBertBiEncoder.planBatches(lengths, 3, true);
+
+        assertEquals(2, batches.size());
+        assertArrayEquals(new int[]{1, 3, 4}, batches.get(0));
+        assertArrayEquals(new int[]{2, 0, 5}, batches.get(1));
+    }
+
+    @Test
+    void shouldKeepInputOrderWithoutSorting() {
+        List<int[]> batches = OnnxBertBiEncoder.planBatches(new int[]{50, 3, 48}, 2, false);
+
+        assertArrayEquals(new int[]{0, 1}, batches.get(0));
+        assertArrayEquals(new int[]{2}, batches.get(1));
+    }
+
+    @Test
+    void shouldPlanPartitionsWithoutOverlap() {
+        List<int[]> partitions = OnnxBertBiEncoder.planPartitions(1020, 510, 0);
+
+        assertEquals(2, partitions.size());
+        assertArrayEquals(new int[]{0, 510}, partitions.get(0));
+        assertArrayEquals(new int[]{510, 1020}, partitions.get(1));
+    }
+
+    @Test
+    void shouldPlanOverlappingPartitions() {
+        List<int[]> partitions = OnnxBertBiEncoder.planPartitions(1000, 510, 100);
+
+        assertEquals(3, partitions.size());
+        assertArrayEquals(new int[]{0, 510}, partitions.get(0));
+        assertArrayEquals(new int[]{410, 920}, partitions.get(1));
+        assertArrayEquals(new int[]{820, 1000}, partitions.get(2));
+    }
+
+    @Test
+    void shouldPlanOnePartitionForShortAndEmptyTexts() {
+        assertArrayEquals(new int[]{0, 510}, OnnxBertBiEncoder.planPartitions(510, 510, 100).getFirst());
+        assertEquals(1, OnnxBertBiEncoder.planPartitions(510, 510, 100).size());
+        assertArrayEquals(new int[]{0, 0}, OnnxBertBiEncoder.planPartitions(0, 510, 0).getFirst());
+        assertEquals(1, OnnxBertBiEncoder.planPartitions(0, 510, 0).size());
+    }
+
+    @Test
+    void shouldRejectAnOverlapOfAWholePartition() {
+        OnnxBertBiEncoderConfig config = OnnxBertBiEncoderConfig.builder().partitionOverlap(510).build();
+
+        assertThrows(IllegalArgumentException.class, () -> new OnnxBertBiEncoder(config));
+    }
+
+    @Test
+    void shouldIgnorePaddingWhenPooling() {
+        // Two sequences of three tokens with two dimensions, the second sequence has one padding token
+        FloatBuffer tokenEmbeddings = FloatBuffer.wrap(new float[]{9f, 9f, 9f, 9f, 9f, 9f, 1f, 2f, 3f, 4f, 100f, 100f});
+
+        float[] pooled = PoolingStrategy.MEAN.pool(tokenEmbeddings, 6, 2, 2);
+
+        assertArrayEquals(new float[]{2f, 3f}, pooled);
+    }
+
+    @Test
+    void shouldCreateSessionOptionsForPerSessionAndGlobalThreads() {
+        OnnxBertBiEncoderConfig perSession = OnnxBertBiEncoderConfig.builder()
+                .intraOpThreads(2)
+                .interOpThreads(1)
+                .optimizationLevel(OptLevel.BASIC_OPT)
+                .memoryArena(false)
+                .memoryPattern(false)
+                .build();
+        OnnxBertBiEncoderConfig global = OnnxBertBiEncoderConfig.builder().globalThreadPool(true).build();
+
+        assertDoesNotThrow(() -> OnnxBertBiEncoder.createSessionOptions(perSession).close());
+        assertDoesNotThrow(() -> OnnxBertBiEncoder.createSessionOptions(global).close());
+    }
+
+    @Test
+    void shouldExtractResourceOnceToTheCacheDirectory(@TempDir Path cacheDirectory) throws IOException {
+        Path extracted = OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory);
+        FileTime extractedAt = Files.getLastModifiedTime(extracted);
+
+        try (InputStream resource = getClass().getResourceAsStream("/onnx/bert-vocabulary-en.txt")) {
+            assertArrayEquals(resource.readAllBytes(), Files.readAllBytes(extracted));
+        }
+        assertEquals(extracted, OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory));
+        assertEquals(extractedAt, Files.getLastModifiedTime(extracted));
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertEquals(List.of("bert-vocabulary-en.txt", "bert-vocabulary-en.txt.source"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    void shouldExtractTheResourceAgainWhenTheCachedFileChanged(@TempDir Path cacheDirectory) throws IOException {
+        Path extracted = OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory);
+        byte[] resource = Files.readAllBytes(extracted);
+        Files.writeString(extracted, "[PAD]\n[CLS]\n");
+
+        assertEquals(extracted, OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory));
+        assertArrayEquals(resource, Files.readAllBytes(extracted));
+    }
+
+    @Test
+    void shouldKeepTheExtractedFileWhenItsRecordIsLost(@TempDir Path cacheDirectory) throws IOException {
+        Path extracted = OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory);
+        Path source = cacheDirectory.resolve("bert-vocabulary-en.txt.source");
+        String record = Files.readString(source);
+        FileTime extractedAt = Files.getLastModifiedTime(extracted);
+        Files.delete(source);
+
+        assertEquals(extracted, OnnxBertBiEncoder.extractModel("/onnx/bert-vocabulary-en.txt", cacheDirectory));
+        assertEquals(extractedAt, Files.getLastModifiedTime(extracted));
+        assertEquals(record, Files.readString(source));
+    }
+
+    @Test
+    void shouldFailWhenTheModelIsNotOnTheClasspath(@TempDir Path cacheDirectory) {
+        assertThrows(IllegalStateException.class,
+                () -> OnnxBertBiEncoder.extractModel("/onnx/missing.onnx", cacheDirectory));
+    }
+
+    @Test
+    void shouldPoolTheTokenEmbeddingsOfTheModel(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(OnnxBertBiEncoderConfig.builder().modelPath(model).build());
+
+        List<float[]> embeddings = encoder.embedAll(TEXTS);
+
+        for (int i = 0; i < TEXTS.size(); i++) {
+            assertArrayEquals(expectedEmbedding(TEXTS.get(i), PoolingStrategy.MEAN), embeddings.get(i), 1e-5f);
+        }
+        assertArrayEquals(embeddings.get(1), encoder.embed(TEXTS.get(1)), 1e-6f);
+    }
+
+    @Test
+    void shouldEmbedOutputsLargerThanThePinnedMaximum(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoder pinned = new OnnxBertBiEncoder(OnnxBertBiEncoderConfig.builder().modelPath(model).build());
+        OnnxBertBiEncoder unpinned = new OnnxBertBiEncoder(
+                OnnxBertBiEncoderConfig.builder().modelPath(model).maxPinnedOutputBytes(0).build());
+
+        List<float[]> expected = pinned.embedAll(TEXTS);
+        List<float[]> actual = unpinned.embedAll(TEXTS);
+
+        for (int i = 0; i < TEXTS.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), 1e-6f);
+        }
+    }
+
+    @Test
+    void shouldShareWorkspacesBetweenCallingThreads(@TempDir Path directory) throws Exception {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(OnnxBertBiEncoderConfig.builder().modelPath(model).build());
+        float[] expected = expectedEmbedding(TEXTS.get(0), PoolingStrategy.MEAN);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<float[]>> embeddings = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                embeddings.add(executor.submit(() -> encoder.embed(TEXTS.get(0))));
+            }
+            for (Future<float[]> embedding : embeddings) {
+                assertArrayEquals(expected, embedding.get(), 1e-5f);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldPoolWithTheConfiguredStrategy(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+
+        for (PoolingStrategy strategy : List.of(PoolingStrategy.CLS, PoolingStrategy.MAX)) {
+            OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(
+                    OnnxBertBiEncoderConfig.builder().modelPath(model).poolingStrategy(strategy).build());
+
+            List<float[]> embeddings = encoder.embedAll(TEXTS);
+
+            for (int i = 0; i < TEXTS.size(); i++) {
+                assertArrayEquals(expectedEmbedding(TEXTS.get(i), strategy), embeddings.get(i), 1e-5f);
+            }
+        }
+    }
+
+    @Test
+    void shouldUseThePooledOutputOfTheModel(@TempDir Path directory) throws IOException {
+        // The model pools with the maximum, the configured mean is not used
+        Path model = TestModels.pooledSinusoidModel(directory);
+        OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(OnnxBertBiEncoderConfig.builder().modelPath(model).build());
+
+        float[] embedding = encoder.embed(TEXTS.get(0));
+
+        assertArrayEquals(expectedEmbedding(TEXTS.get(0), PoolingStrategy.MAX), embedding, 1e-5f);
+    }
+
+    @Test
+    void shouldWriteTheOptimizedModelAgainWhenTheModelChanges(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        Path optimizedModel = directory.resolve("optimized.onnx");
+        OnnxBertBiEncoderConfig config = OnnxBertBiEncoderConfig.builder()
+                .modelPath(model)
+                .optimizedModelPath(optimizedModel)
+                .build();
+        new OnnxBertBiEncoder(config);
+        String source = Files.readString(directory.resolve("optimized.onnx.source"));
+
+        OnnxBertBiEncoder reused = new OnnxBertBiEncoder(config);
+        assertArrayEquals(expectedEmbedding(TEXTS.get(1), PoolingStrategy.MEAN), reused.embed(TEXTS.get(1)), 1e-5f);
+        assertEquals(source, Files.readString(directory.resolve("optimized.onnx.source")));
+
+        Files.copy(TestModels.pooledSinusoidModel(directory), model, StandardCopyOption.REPLACE_EXISTING);
+        OnnxBertBiEncoder changed = new OnnxBertBiEncoder(config);
+
+        assertArrayEquals(expectedEmbedding(TEXTS.get(1), PoolingStrategy.MAX), changed.embed(TEXTS.get(1)), 1e-5f);
+        assertNotEquals(source, Files.readString(directory.resolve("optimized.onnx.source")));
+    }
+
+    @Test
+    void shouldNotEmbedAfterClose(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(OnnxBertBiEncoderConfig.builder().modelPath(model).build());
+
+        encoder.close();
+
+        assertThrows(IllegalStateException.class, () -> encoder.embed(TEXTS.get(1)));
+    }
+
+    @Test
+    void shouldFailForAPooledOutputTheModelDoesNotHave(@TempDir Path directory) throws IOException {
+        OnnxBertBiEncoderConfig config = OnnxBertBiEncoderConfig.builder()
+                .modelPath(TestModels.sinusoidModel(directory))
+                .pooledOutputName("sentence_embedding")
+                .build();
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> new OnnxBertBiEncoder(config));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldEmbedEveryPartitionOfALongText(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoder encoder = new OnnxBertBiEncoder(
+                OnnxBertBiEncoderConfig.builder().modelPath(model).partitionOverlap(100).build());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            text.append("word").append(i % 37).append(' ');
+        }
+        int[] wordPieces = TOKENIZER.tokenize(text.toString());
+        List<int[]> plannedPartitions = OnnxBertBiEncoder.planPartitions(wordPieces.length, 510, 100);
+
+        List<float[]> partitions = encoder.embedPartitions(text.toString());
+
+        assertTrue(plannedPartitions.size() > 1);
+        assertEquals(plannedPartitions.size(), partitions.size());
+        for (int p = 0; p < partitions.size(); p++) {
+            int[] range = plannedPartitions.get(p);
+            assertArrayEquals(expectedEmbedding(wordPieces, range[0], range[1], PoolingStrategy.MEAN),
+                    partitions.get(p), 1e-5f);
+        }
+        assertArrayEquals(encoder.embed(TEXTS.get(1)), encoder.embedPartitions(TEXTS.get(1)).getFirst(), 1e-6f);
+    }
+
+    private static float[] expectedEmbedding(String text, PoolingStrategy strategy) {
+        int[] wordPieces = TOKENIZER.tokenize(text);
+        return expectedEmbedding(wordPieces, 0, wordPieces.length, strategy);
+    }
+
+    /**
+     * The normalised pooling of the token embeddings of [CLS], the word pieces from <code>from</code> up to
+     * <code>to</code> and [SEP].
+     */
+    private static float[] expectedEmbedding(int[] wordPieces, int from, int to, PoolingStrategy strategy) {
+        long[] ids = new long[to - from + 2];
+        ids[0] = TOKENIZER.idOf("[CLS]");
+        for (int i = from; i < to; i++) {
+            ids[i - from + 1] = wordPieces[i];
+        }
+        ids[ids.length - 1] = TOKENIZER.idOf("[SEP]");
+
+        int hiddenSize = TestModels.FREQUENCIES.length;
+        FloatBuffer tokenEmbeddings = FloatBuffer.allocate(ids.length * hiddenSize);
+        for (long id : ids) {
+            tokenEmbeddings.put(TestModels.tokenEmbedding(id));
+        }
+        float[] pooled = strategy.pool(tokenEmbeddings, 0, ids.length, hiddenSize);
+
+        double norm = 0;
+        for (float value : pooled) {
+            norm += value * value;
+        }
+        for (int j = 0; j < pooled.length; j++) {
+            pooled[j] /= (float) Math.sqrt(norm);
+        }
+        return pooled;
+    }
+}
@@ -0,0 +1,38 @@
+package org.rag4j.rag.embedding.local;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The global thread pool can only be configured before the first ONNX Runtime environment in the JVM exists, the
+ * build runs this test in a JVM of its own.
+ */
+class OnnxGlobalThreadPoolTest {
+
+    @Test
+    void shouldShareTheGlobalThreadPoolBetweenEncoders(@TempDir Path directory) throws IOException {
+        Path model = TestModels.sinusoidModel(directory);
+        OnnxBertBiEncoderConfig config = OnnxBertBiEncoderConfig.builder()
+                .modelPath(model)
+                .globalThreadPool(true)
+                .intraOpThreads(2)
+                .interOpThreads(1)
+                .build();
+
+        OnnxBertBiEncoder first = new OnnxBertBiEncoder(config);
+        OnnxBertBiEncoder second = assertDoesNotThrow(() -> new OnnxBertBiEncoder(config));
+
+        List<String> texts = List.of("The first encoder", "and the second one");
+        List<float[]> expected = first.embedAll(texts);
+        List<float[]> actual = second.embedAll(texts);
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), 1e-6f);
+        }
+    }
+}
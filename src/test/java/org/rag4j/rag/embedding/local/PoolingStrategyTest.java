@@ -0,0 +1,33 @@
+package org.rag4j.rag.embedding.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class PoolingStrategyTest {
+    // Three tokens with two dimensions and one padding token
+    private static final FloatBuffer TOKEN_EMBEDDINGS =
+            FloatBuffer.wrap(new float[]{1f, -4f, 3f, 2f, -1f, -6f, 100f, 100f});
+
+    @Test
+    void shouldAverageTheTokens() {
+        assertArrayEquals(new float[]{1f, -8f / 3f}, PoolingStrategy.MEAN.pool(TOKEN_EMBEDDINGS, 0, 3, 2), 1e-6f);
+    }
+
+    @Test
+    void shouldTakeTheFirstToken() {
+        assertArrayEquals(new float[]{1f, -4f}, PoolingStrategy.CLS.pool(TOKEN_EMBEDDINGS, 0, 3, 2));
+    }
+
+    @Test
+    void shouldTakeTheLargestValuePerDimensionWithoutPadding() {
+        assertArrayEquals(new float[]{3f, 2f}, PoolingStrategy.MAX.pool(TOKEN_EMBEDDINGS, 0, 3, 2));
+    }
+
+    @Test
+    void shouldStartAtTheOffset() {
+        assertArrayEquals(new float[]{-1f, -6f}, PoolingStrategy.MAX.pool(TOKEN_EMBEDDINGS, 4, 1, 2));
+    }
+}
@@ -0,0 +1,161 @@
+package org.rag4j.rag.embedding.local;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes tiny ONNX models that stand in for the BERT model in tests. The model has the inputs of an exported BERT
+ * model and computes the embedding of every token from its id alone: <code>sin(id * f)</code> for the four
+ * frequencies <code>f</code>. The pooled variant adds a <code>sentence_embedding</code> output with the largest value
+ * of every dimension over all tokens, padding included. The protobuf messages are written by hand, so the tests need no
+ * ONNX tooling.
+ */
+final class TestModels {
+    static final float[] FREQUENCIES = {0.5f, 1.0f, 1.5f, 2.0f};
+
+    private static final int FLOAT = 1;
+    private static final int INT64 = 7;
+    private static final int ATTRIBUTE_INT = 2;
+    private static final int ATTRIBUTE_INTS = 7;
+
+    private TestModels() {
+    }
+
+    /**
+     * @return the path of the written model
+     */
+    static Path sinusoidModel(Path directory) throws IOException {
+        return writeModel(directory.resolve("sinusoid.onnx"), false);
+    }
+
+    /**
+     * @return the path of the written model that also pools the token embeddings
+     */
+    static Path pooledSinusoidModel(Path directory) throws IOException {
+        return writeModel(directory.resolve("sinusoid-pooled.onnx"), true);
+    }
+
+    private static Path writeModel(Path file, boolean pooled) throws IOException {
+        Proto graph = new Proto()
+                .message(1, node("Cast", new String[]{"input_ids"}, "ids_float",
+                        new Proto().string(1, "to").varint(20, ATTRIBUTE_INT).varint(3, FLOAT)))
+                .message(1, node("Unsqueeze", new String[]{"ids_float", "axes"}, "ids_column"))
+                .message(1, node("Mul", new String[]{"ids_column", "frequencies"}, "phases"))
+                .message(1, node("Sin", new String[]{"phases"}, "last_hidden_state"))
+                .string(2, "sinusoid")
+                .message(5, longTensor("axes", 2))
+                .message(5, floatTensor("frequencies", FREQUENCIES))
+                .message(11, valueInfo("input_ids", INT64, "batch", "sequence"))
+                .message(11, valueInfo("attention_mask", INT64, "batch", "sequence"))
+                .message(11, valueInfo("token_type_ids", INT64, "batch", "sequence"))
+                .message(12, valueInfo("last_hidden_state", FLOAT, "batch", "sequence", FREQUENCIES.length));
+        if (pooled) {
+            graph.message(1, node("ReduceMax", new String[]{"last_hidden_state"}, "sentence_embedding",
+                            new Proto().string(1, "axes").varint(20, ATTRIBUTE_INTS).varint(8, 1),
+                            new Proto().string(1, "keepdims").varint(20, ATTRIBUTE_INT).varint(3, 0)))
+                    .message(12, valueInfo("sentence_embedding", FLOAT, "batch", FREQUENCIES.length));
+        }
+        Proto model = new Proto()
+                .varint(1, 8)
+                .message(7, graph)
+                .message(8, new Proto().string(1, "").varint(2, 13));
+
+        Files.write(file, model.bytes());
+        return file;
+    }
+
+    /**
+     * @return the embedding the model computes for a token
+     */
+    static float[] tokenEmbedding(long id) {
+        float[] embedding = new float[FREQUENCIES.length];
+        for (int j = 0; j < embedding.length; j++) {
+            embedding[j] = (float) Math.sin((float) id * FREQUENCIES[j]);
+        }
+        return embedding;
+    }
+
+    private static Proto node(String opType, String[] inputs, String output, Proto... attributes) {
+        Proto node = new Proto();
+        for (String input : inputs) {
+            node.string(1, input);
+        }
+        node.string(2, output).string(3, opType.toLowerCase()).string(4, opType);
+        for (Proto attribute : attributes) {
+            node.message(5, attribute);
+        }
+        return node;
+    }
+
+    private static Proto longTensor(String name, long value) {
+        ByteBuffer data = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value);
+        return new Proto().varint(1, 1).varint(2, INT64).string(8, name).bytes(9, data.array());
+    }
+
+    private static Proto floatTensor(String name, float[] values) {
+        ByteBuffer data = ByteBuffer.allocate(4 * values.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : values) {
+            data.putFloat(value);
+        }
+        return new Proto().varint(1, values.length).varint(2, FLOAT).string(8, name).bytes(9, data.array());
+    }
+
+    /**
+     * @param dimensions a String for a named dynamic dimension, an Integer for a fixed one
+     */
+    private static Proto valueInfo(String name, int elementType, Object... dimensions) {
+        Proto shape = new Proto();
+        for (Object dimension : dimensions) {
+            shape.message(1, dimension instanceof Integer size
+                    ? new Proto().varint(1, size)
+                    : new Proto().string(2, (String) dimension));
+        }
+        Proto tensorType = new Proto().varint(1, elementType).message(2, shape);
+        return new Proto().string(1, name).message(2, new Proto().message(1, tensorType));
+    }
+
+    /**
+     * Minimal protobuf writer for varint and length delimited fields.
+     */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto varint(int field, long value) {
+            writeVarint(((long) field << 3));
+            writeVarint(value);
+            return this;
+        }
+
+        Proto string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Proto message(int field, Proto message) {
+            return bytes(field, message.bytes());
+        }
+
+        Proto bytes(int field, byte[] value) {
+            writeVarint(((long) field << 3) | 2);
+            writeVarint(value.length);
+            this.out.writeBytes(value);
+            return this;
+        }
+
+        byte[] bytes() {
+            return this.out.toByteArray();
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.djl.modality.nlp.DefaultVocabulary;
+import ai.djl.modality.nlp.Vocabulary;
+import ai.djl.modality.nlp.bert.BertFullTokenizer;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link WordPieceTokenizer} with the DJL tokenizer and vocabulary lookup that was used before, on the
+ * descriptions of the JFall sessions. Run it from the test classpath, JMH forks a JVM for the measurements so it
+ * needs the full classpath:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) org.openjdk.jmh.Main WordPieceTokenizerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordPieceTokenizerBenchmark {
+    private static final String VOCABULARY = "/onnx/bert-vocabulary-en.txt";
+
+    private List<String> descriptions;
+    private WordPieceTokenizer tokenizer;
+    private BertFullTokenizer djlTokenizer;
+    private Vocabulary djlVocabulary;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/data/jfall/sessions.jsonl");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            this.descriptions = reader.lines().map(line -> new JSONObject(line).getString("description")).toList();
+        }
+        this.tokenizer = WordPieceTokenizer.fromResource(VOCABULARY);
+        this.djlVocabulary = DefaultVocabulary.builder().addFromTextFile(getClass().getResource(VOCABULARY)).build();
+        this.djlTokenizer = new BertFullTokenizer(this.djlVocabulary, true);
+    }
+
+    @Benchmark
+    public long wordPieceTokenizer() {
+        long sum = 0;
+        for (String description : this.descriptions) {
+            for (int id : this.tokenizer.tokenize(description)) {
+                sum += id;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long djlTokenizer() {
+        long sum = 0;
+        for (String description : this.descriptions) {
+            for (String wordPiece : this.djlTokenizer.tokenize(description)) {
+                sum += this.djlVocabulary.getIndex(wordPiece);
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WordPieceTokenizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package org.rag4j.rag.embedding.local;
+
+import ai.djl.modality.nlp.DefaultVocabulary;
+import ai.djl.modality.nlp.Vocabulary;
+import ai.djl.modality.nlp.bert.BertFullTokenizer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordPieceTokenizerTest {
+    private static final String VOCABULARY = "/onnx/bert-vocabulary-en.txt";
+
+    private static WordPieceTokenizer tokenizer;
+    private static BertFullTokenizer djlTokenizer;
+    private static Vocabulary djlVocabulary;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        tokenizer = WordPieceTokenizer.fromResource(VOCABULARY);
+        djlVocabulary = DefaultVocabulary.builder()
+                .addFromTextFile(WordPieceTokenizerTest.class.getResource(VOCABULARY))
+                .build();
+        djlTokenizer = new BertFullTokenizer(djlVocabulary, true);
+    }
+
+    @Test
+    void shouldSplitWordsIntoLongestWordPieces() {
+        int[] ids = tokenizer.tokenize("Embeddings, for JFall!");
+
+        List<String> pieces = new ArrayList<>();
+        for (int id : ids) {
+            pieces.add(tokenizer.tokenOf(id));
+        }
+        assertEquals(List.of("em", "##bed", "##ding", "##s", ",", "for", "j", "##fall", "!"), pieces);
+    }
+
+    @Test
+    void shouldMatchDjlOnTheJFallSessions() throws IOException {
+        int texts = 0;
+        try (InputStream inputStream = getClass().getResourceAsStream("/data/jfall/sessions.jsonl");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject session = new JSONObject(line);
+                assertSameIds(session.getString("title"));
+                assertSameIds(session.getString("description"));
+                texts += 2;
+            }
+        }
+        assertTrue(texts > 100);
+    }
+
+    @Test
+    void shouldMatchDjlOnEdgeCases() {
+        assertSameIds("");
+        assertSameIds("   \t\n ");
+        assertSameIds("Crème brûlée at the Café, naïve façade");
+        assertSameIds("ΟΔΟΣ İstanbul STRASSE straße");
+        assertSameIds("tabs\tand non-breaking spaces, double  spaces");
+        assertSameIds("control\u0000chars\u0007and�replacement\u0085");
+        assertSameIds("emoji 😀 and math 𝔸𝔹 and CJK 中文字");
+        assertSameIds("quotes “like” «these» and dashes – — and ellipsis…");
+        assertSameIds("$100 + 5% <= x^2 | `code` ~home @user #tag");
+        assertSameIds("a".repeat(200) + " " + "b".repeat(201));
+        assertSameIds("unknown ⅧⅨ characters and zero​width");
+    }
+
+    private static void assertSameIds(String text) {
+        List<String> pieces = djlTokenizer.tokenize(text);
+        int[] expected = pieces.stream().mapToInt(piece -> (int) djlVocabulary.getIndex(piece)).toArray();
+
+        assertArrayEquals(expected, tokenizer.tokenize(text), () -> "Different ids for: " + text + " " + pieces);
+    }
+}
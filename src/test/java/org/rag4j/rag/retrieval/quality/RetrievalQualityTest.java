@@ -46,6 +46,7 @@ public class RetrievalQualityTest {
                 .text("text")
                 .properties(Map.of())
                 .build(), 1.0);
+        when(embedder.embedAll(List.of("question"))).thenReturn(List.of(List.of(1.0f, 0.0f)));
         when(retriever.findRelevantChunks(anyString(), any(List.class), anyInt())).thenReturn(List.of(relevantChunk));
 
         RetrievalQuality retrievalQuality = retrievalQualityService.obtainRetrievalQuality(questionAnswerRecords, embedder);
@@ -60,6 +61,7 @@ public class RetrievalQualityTest {
         questionAnswerRecords.add(new QuestionAnswerRecord("doc1", "1", "text", "question"));
 
         RelevantChunk relevantChunk = new RelevantChunk("doc2", "2", 3, 1.0,"text", Map.of());
+        when(embedder.embedAll(List.of("question"))).thenReturn(List.of(List.of(1.0f, 0.0f)));
         when(retriever.findRelevantChunks(anyString(), any(List.class), anyInt())).thenReturn(List.of(relevantChunk));
 
         RetrievalQuality retrievalQuality = retrievalQualityService.obtainRetrievalQuality(questionAnswerRecords, embedder);
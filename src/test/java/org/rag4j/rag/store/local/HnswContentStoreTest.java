@@ -0,0 +1,98 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.quality.ApproximateRetrievalReport;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswContentStoreTest {
+    private static final int DIMENSION = 24;
+
+    private final Map<String, List<Float>> vectors = new HashMap<>();
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Random random = new Random(13);
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 2000; i++) {
+            vectors.put("text " + i, randomVector());
+            chunks.add(chunk("doc" + i, "text " + i));
+        }
+    }
+
+    @Test
+    void shouldReachHighRecallComparedToExactStore() {
+        InternalContentStore exactStore = new InternalContentStore(vectors::get);
+        HnswContentStore hnswStore = new HnswContentStore(vectors::get, HnswConfig.builder()
+                .m(12)
+                .efConstruction(100)
+                .efSearch(64)
+                .build());
+        exactStore.store(chunks);
+        hnswStore.store(chunks);
+
+        List<List<Float>> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            queries.add(randomVector());
+        }
+        ApproximateRetrievalReport report = ApproximateRetrievalReport.measure(exactStore, hnswStore, queries, 10);
+
+        assertEquals(50, report.getNumberOfQueries());
+        assertTrue(report.getRecall() > 0.9, "Recall too low: " + report);
+    }
+
+    @Test
+    void shouldReturnStoredVectorAsClosestChunk() {
+        HnswContentStore hnswStore = new HnswContentStore(vectors::get);
+        hnswStore.store(chunks);
+
+        List<RelevantChunk> relevantChunks = hnswStore.findRelevantChunks("text 42", 3);
+
+        assertEquals(3, relevantChunks.size());
+        assertEquals("doc42_0", relevantChunks.getFirst().getDocumentChunkId());
+        assertEquals(0.0, relevantChunks.getFirst().getScore(), 1e-6);
+    }
+
+    @Test
+    void shouldNotReturnReplacedChunkTwice() {
+        HnswContentStore hnswStore = new HnswContentStore(vectors::get);
+        hnswStore.store(chunks.subList(0, 100));
+        hnswStore.store(List.of(chunk("doc1", "text 2")));
+
+        List<RelevantChunk> relevantChunks = hnswStore.findRelevantChunks("text 1", 100);
+
+        assertEquals(100, relevantChunks.size());
+        assertEquals(100, relevantChunks.stream().map(RelevantChunk::getDocumentChunkId).distinct().count());
+        assertEquals("text 2", hnswStore.getChunk("doc1", "0").getText());
+    }
+
+    @Test
+    void shouldReturnNothingForEmptyStore() {
+        HnswContentStore hnswStore = new HnswContentStore(vectors::get);
+
+        assertTrue(hnswStore.findRelevantChunks("text 1", 4).isEmpty());
+    }
+
+    private List<Float> randomVector() {
+        List<Float> vector = new ArrayList<>();
+        for (int i = 0; i < DIMENSION; i++) {
+            vector.add(random.nextFloat());
+        }
+        return vector;
+    }
+
+    private static Chunk chunk(String documentId, String text) {
+        return Chunk.builder()
+                .documentId(documentId)
+                .chunkId("0")
+                .totalChunks(1)
+                .text(text)
+                .properties(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.Test;
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalContentStoreConcurrencyTest {
+    private static final int DIMENSION = 8;
+
+    /**
+     * Derives the vector from the text, so a reader can verify that every returned chunk was scored with its own vector.
+     */
+    private final Embedder embedder = InternalContentStoreConcurrencyTest::vectorFor;
+
+    @Test
+    void readersShouldOnlySeeConsistentChunksWhileWriterStores() throws Exception {
+        InternalContentStore contentStore = new InternalContentStore(embedder,
+                InternalContentStoreConfig.builder().concurrent(true).build());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger searches = new AtomicInteger();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            int seed = r;
+            readers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                while (writing.get()) {
+                    List<Float> question = vectorFor("question " + random.nextInt());
+                    for (RelevantChunk relevantChunk : contentStore.findRelevantChunks("question", question, 5)) {
+                        checkScore(question, relevantChunk, failures);
+                    }
+                    searches.incrementAndGet();
+                }
+            }));
+        }
+
+        Set<String> keys = new HashSet<>();
+        Future<?> writer = executor.submit(() -> {
+            try {
+                for (int batch = 0; batch < 300; batch++) {
+                    List<Chunk> chunks = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        // Every third batch replaces chunks stored before with new text
+                        int document = batch % 3 == 2 ? batch - 2 : batch;
+                        chunks.add(chunk("doc" + document, String.valueOf(i), "text " + batch + " " + i));
+                        keys.add("doc" + document + "_" + i);
+                    }
+                    contentStore.store(chunks);
+                }
+            } finally {
+                writing.set(false);
+            }
+        });
+
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, first: " + failures.peek());
+        assertTrue(searches.get() > 0);
+
+        List<RelevantChunk> all = contentStore.findRelevantChunks("question", vectorFor("question"), 10_000);
+        assertEquals(keys.size(), all.size());
+        assertEquals(keys.size(), all.stream().map(RelevantChunk::getDocumentChunkId).distinct().count());
+        for (RelevantChunk relevantChunk : all) {
+            assertEquals(contentStore.getChunk(relevantChunk.getDocumentId(), relevantChunk.getChunkId()).getText(),
+                    relevantChunk.getText());
+        }
+    }
+
+    @Test
+    void readersOfAStoreWithoutDeletionsShouldNotSeeLaterReplacements() throws Exception {
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int round = 0; round < 200 && failures.isEmpty(); round++) {
+                InternalContentStore contentStore = new InternalContentStore(embedder,
+                        InternalContentStoreConfig.builder().concurrent(true).build());
+                List<Chunk> chunks = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    chunks.add(chunk("doc" + i, "0", "text " + i));
+                }
+                contentStore.store(chunks);
+
+                AtomicBoolean writing = new AtomicBoolean(true);
+                List<Future<?>> readers = new ArrayList<>();
+                for (int r = 0; r < 2; r++) {
+                    readers.add(executor.submit(() -> {
+                        List<Float> question = vectorFor("question");
+                        while (writing.get()) {
+                            // Asks for more results than there are chunks, every live chunk is returned once
+                            List<RelevantChunk> relevantChunks = contentStore.findRelevantChunks("question", question, 100);
+                            for (RelevantChunk relevantChunk : relevantChunks) {
+                                checkScore(question, relevantChunk, failures);
+                            }
+                            if (relevantChunks.stream().map(RelevantChunk::getDocumentChunkId).distinct().count() != 50) {
+                                failures.add("Expected 50 distinct chunks, got " + relevantChunks.size());
+                            }
+                        }
+                    }));
+                }
+                for (int i = 0; i < 50; i++) {
+                    contentStore.store(List.of(chunk("doc" + i, "0", "replaced " + i)));
+                }
+                writing.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get(60, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, first: " + failures.peek());
+    }
+
+    @Test
+    void shouldRejectConcurrentModeWithQuantization() {
+        InternalContentStoreConfig config = InternalContentStoreConfig.builder()
+                .concurrent(true)
+                .scalarQuantization(ScalarQuantizationConfig.builder().build())
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> new InternalContentStore(embedder, config));
+    }
+
+    private static void checkScore(List<Float> question, RelevantChunk relevantChunk, Queue<String> failures) {
+        if (relevantChunk.getText() == null) {
+            failures.add("Chunk without text " + relevantChunk.getDocumentChunkId());
+            return;
+        }
+        List<Float> vector = vectorFor(relevantChunk.getText());
+        double sum = 0.0;
+        for (int i = 0; i < DIMENSION; i++) {
+            double diff = vector.get(i) - question.get(i);
+            sum += diff * diff;
+        }
+        if (Math.abs(Math.sqrt(sum) - relevantChunk.getScore()) > 1e-4) {
+            failures.add("Score of " + relevantChunk.getDocumentChunkId() + " does not match its vector");
+        }
+    }
+
+    private static List<Float> vectorFor(String text) {
+        Random random = new Random(text.hashCode());
+        List<Float> vector = new ArrayList<>(DIMENSION);
+        for (int i = 0; i < DIMENSION; i++) {
+            vector.add(random.nextFloat());
+        }
+        return vector;
+    }
+
+    private static Chunk chunk(String documentId, String chunkId, String text) {
+        return Chunk.builder()
+                .documentId(documentId)
+                .chunkId(chunkId)
+                .totalChunks(10)
+                .text(text)
+                .properties(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,408 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.embedding.EmbeddingVector;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.quality.ApproximateRetrievalReport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalContentStoreTest {
+    private static final Map<String, List<Float>> VECTORS = Map.of(
+            "java", List.of(1.0f, 0.0f, 0.0f),
+            "kotlin", List.of(0.9f, 0.1f, 0.0f),
+            "python", List.of(0.0f, 1.0f, 0.0f),
+            "rust", List.of(0.0f, 0.0f, 1.0f),
+            "question about java", List.of(0.97f, 0.03f, 0.0f)
+    );
+
+    private final Embedder embedder = VECTORS::get;
+
+    private InternalContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = new InternalContentStore(embedder);
+        contentStore.store(List.of(
+                chunk("doc1", "0", "java"),
+                chunk("doc1", "1", "kotlin"),
+                chunk("doc2", "0", "python"),
+                chunk("doc3", "0", "rust")
+        ));
+    }
+
+    @Test
+    void shouldReturnClosestChunksOrderedByDistance() {
+        List<RelevantChunk> relevantChunks = contentStore.findRelevantChunks("question about java", 2);
+
+        assertEquals(2, relevantChunks.size());
+        assertEquals("doc1_0", relevantChunks.get(0).getDocumentChunkId());
+        assertEquals("doc1_1", relevantChunks.get(1).getDocumentChunkId());
+        assertEquals(Math.sqrt(0.03 * 0.03 + 0.03 * 0.03), relevantChunks.get(0).getScore(), 1e-6);
+    }
+
+    @Test
+    void shouldFindTheSameChunksForAPrimitiveVector() {
+        List<RelevantChunk> fromList = contentStore.findRelevantChunks(
+                "question about java", VECTORS.get("question about java"), 3);
+        List<RelevantChunk> fromVector = contentStore.findRelevantChunks(
+                "question about java", EmbeddingVector.of(new float[]{0.97f, 0.03f, 0.0f}), 3);
+
+        assertEquals(fromList.stream().map(RelevantChunk::getDocumentChunkId).toList(),
+                fromVector.stream().map(RelevantChunk::getDocumentChunkId).toList());
+        assertEquals(fromList.get(0).getScore(), fromVector.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void shouldReturnAllChunksWhenMaxResultsExceedsStoreSize() {
+        List<RelevantChunk> relevantChunks = contentStore.findRelevantChunks("question about java", 10);
+
+        assertEquals(4, relevantChunks.size());
+        for (int i = 1; i < relevantChunks.size(); i++) {
+            assertTrue(relevantChunks.get(i - 1).getScore() <= relevantChunks.get(i).getScore());
+        }
+    }
+
+    @Test
+    void shouldReplaceVectorWhenChunkIsStoredAgain() {
+        contentStore.store(List.of(chunk("doc3", "0", "java")));
+
+        List<RelevantChunk> relevantChunks = contentStore.findRelevantChunks("question about java", 10);
+
+        assertEquals(4, relevantChunks.size());
+        assertEquals("java", contentStore.getChunk("doc3", "0").getText());
+        assertEquals(Set.of("doc1_0", "doc3_0"), Set.of(
+                relevantChunks.get(0).getDocumentChunkId(), relevantChunks.get(1).getDocumentChunkId()));
+    }
+
+    @Test
+    void shouldLoopOverAllChunks() {
+        List<Chunk> chunks = new ArrayList<>();
+        contentStore.loopOverChunks(chunks::add);
+
+        assertEquals(4, chunks.size());
+    }
+
+    @Test
+    void shouldRejectVectorWithOtherDimension() {
+        assertThrows(IllegalArgumentException.class,
+                () -> contentStore.findRelevantChunks("question", List.of(1.0f, 0.0f), 2));
+    }
+
+    @Test
+    void shouldFindSameChunksWithParallelScan() {
+        Random random = new Random(7);
+        Map<String, List<Float>> vectors = new HashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            vectors.put("text " + i, randomVector(random, 16));
+            chunks.add(chunk("doc" + i, "0", "text " + i));
+        }
+        List<Float> question = randomVector(random, 16);
+
+        InternalContentStore sequentialStore = new InternalContentStore(vectors::get);
+        InternalContentStore parallelStore = new InternalContentStore(vectors::get, InternalContentStoreConfig.builder()
+                .parallelScan(true)
+                .parallelThreshold(100)
+                .partitions(7)
+                .build());
+        sequentialStore.store(chunks);
+        parallelStore.store(chunks);
+
+        assertEquals(sequentialStore.findRelevantChunks("question", question, 10),
+                parallelStore.findRelevantChunks("question", question, 10));
+    }
+
+    @Test
+    void shouldApproximateExactResultsWithProductQuantization() {
+        Random random = new Random(11);
+        Map<String, List<Float>> vectors = new HashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            vectors.put("text " + i, randomVector(random, 16));
+            chunks.add(chunk("doc" + i, "0", "text " + i));
+        }
+        List<List<Float>> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            questions.add(randomVector(random, 16));
+        }
+
+        InternalContentStore exactStore = new InternalContentStore(vectors::get);
+        InternalContentStore compressedStore = new InternalContentStore(vectors::get, productQuantized(false));
+        InternalContentStore rerankedStore = new InternalContentStore(vectors::get, productQuantized(true));
+        exactStore.store(chunks);
+        compressedStore.store(chunks);
+        rerankedStore.store(chunks);
+
+        double compressedRecall = ApproximateRetrievalReport.measure(exactStore, compressedStore, questions, 10).getRecall();
+        double rerankedRecall = ApproximateRetrievalReport.measure(exactStore, rerankedStore, questions, 10).getRecall();
+
+        assertTrue(compressedRecall > 0.5, "Recall too low: " + compressedRecall);
+        assertTrue(rerankedRecall > 0.9, "Recall too low: " + rerankedRecall);
+        assertTrue(rerankedRecall >= compressedRecall);
+    }
+
+    @Test
+    void shouldSearchExactlyUntilProductQuantizerIsTrained() {
+        InternalContentStore compressedStore = new InternalContentStore(embedder, productQuantized(false));
+        compressedStore.store(List.of(
+                chunk("doc1", "0", "java"),
+                chunk("doc1", "1", "kotlin")
+        ));
+
+        List<RelevantChunk> relevantChunks = compressedStore.findRelevantChunks("question about java", 2);
+
+        assertEquals("doc1_0", relevantChunks.getFirst().getDocumentChunkId());
+        assertEquals(Math.sqrt(0.03 * 0.03 + 0.03 * 0.03), relevantChunks.getFirst().getScore(), 1e-6);
+    }
+
+    @Test
+    void shouldApproximateExactResultsWithScalarQuantization() {
+        Random random = new Random(17);
+        Map<String, List<Float>> vectors = new HashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            vectors.put("text " + i, randomVector(random, 32));
+            chunks.add(chunk("doc" + i, "0", "text " + i));
+        }
+        List<List<Float>> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            questions.add(randomVector(random, 32));
+        }
+
+        InternalContentStore exactStore = new InternalContentStore(vectors::get);
+        exactStore.store(chunks);
+        for (ScalarQuantizationConfig.Calibration calibration : ScalarQuantizationConfig.Calibration.values()) {
+            InternalContentStore int8Store = new InternalContentStore(vectors::get, scalarQuantized(calibration, false));
+            InternalContentStore rerankedStore = new InternalContentStore(vectors::get, scalarQuantized(calibration, true));
+            int8Store.store(chunks);
+            rerankedStore.store(chunks);
+
+            double int8Recall = ApproximateRetrievalReport.measure(exactStore, int8Store, questions, 10).getRecall();
+            double rerankedRecall = ApproximateRetrievalReport.measure(exactStore, rerankedStore, questions, 10).getRecall();
+
+            assertTrue(int8Recall > 0.8, calibration + " recall too low: " + int8Recall);
+            assertTrue(rerankedRecall > 0.98, calibration + " recall too low: " + rerankedRecall);
+        }
+    }
+
+    @Test
+    void shouldRejectBothQuantizationModes() {
+        InternalContentStoreConfig config = InternalContentStoreConfig.builder()
+                .productQuantization(ProductQuantizationConfig.builder().build())
+                .scalarQuantization(ScalarQuantizationConfig.builder().build())
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> new InternalContentStore(embedder, config));
+    }
+
+    @Test
+    void shouldRankUnitVectorsByInnerProductWithSameResults() {
+        Random random = new Random(23);
+        Map<String, List<Float>> vectors = new HashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            vectors.put("text " + i, unitVector(random, 16));
+            chunks.add(chunk("doc" + i, "0", "text " + i));
+        }
+        List<Float> question = unitVector(random, 16);
+
+        InternalContentStore euclideanStore = new InternalContentStore(vectors::get);
+        InternalContentStore innerProductStore = new InternalContentStore(normalized(vectors));
+        euclideanStore.store(chunks);
+        innerProductStore.store(chunks);
+
+        List<RelevantChunk> expected = euclideanStore.findRelevantChunks("question", question, 10);
+        List<RelevantChunk> actual = innerProductStore.findRelevantChunks("question", question, 10);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDocumentChunkId(), actual.get(i).getDocumentChunkId());
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-4);
+        }
+    }
+
+    @Test
+    void shouldReportInnerProductWhenSimilarityIsRequested() {
+        Map<String, List<Float>> vectors = Map.of(
+                "java", List.of(1.0f, 0.0f),
+                "python", List.of(0.0f, 1.0f),
+                "question", List.of(0.8f, 0.6f)
+        );
+        InternalContentStore similarityStore = new InternalContentStore(normalized(vectors),
+                InternalContentStoreConfig.builder().reportSimilarity(true).build());
+        similarityStore.store(List.of(chunk("doc1", "0", "java"), chunk("doc2", "0", "python")));
+
+        List<RelevantChunk> relevantChunks = similarityStore.findRelevantChunks("question", 2);
+
+        assertEquals("doc1_0", relevantChunks.get(0).getDocumentChunkId());
+        assertEquals(0.8, relevantChunks.get(0).getScore(), 1e-6);
+        assertEquals(0.6, relevantChunks.get(1).getScore(), 1e-6);
+    }
+
+    @Test
+    void shouldRestoreSnapshotWithoutEmbedding() throws IOException {
+        Chunk withProperties = Chunk.builder()
+                .documentId("doc4")
+                .chunkId("0")
+                .totalChunks(2)
+                .text("java")
+                .properties(Map.of("title", "Java Tips", "year", 2024))
+                .build();
+        contentStore.store(List.of(withProperties));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        contentStore.writeSnapshot(snapshot);
+
+        InternalContentStore restored = new InternalContentStore(text -> {
+            throw new IllegalStateException("Chunks should not be embedded again");
+        });
+        int count = restored.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        assertEquals(5, count);
+        assertEquals(withProperties, restored.getChunk("doc4", "0"));
+        List<Float> question = VECTORS.get("question about java");
+        assertEquals(
+                contentStore.findRelevantChunks("question", question, 5).stream().map(RelevantChunk::getScore).toList(),
+                restored.findRelevantChunks("question", question, 5).stream().map(RelevantChunk::getScore).toList());
+    }
+
+    @Test
+    void shouldRestoreChunksWithoutIdOrText() throws IOException {
+        Chunk withoutText = Chunk.builder().documentId("doc5").totalChunks(1).properties(Map.of()).build();
+        InternalContentStore store = new InternalContentStore(text -> List.of(1.0f, 0.0f, 0.0f));
+        store.store(List.of(withoutText));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        store.writeSnapshot(snapshot);
+
+        InternalContentStore restored = new InternalContentStore(embedder);
+        restored.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        assertEquals(withoutText, restored.getChunk("doc5", null));
+    }
+
+    @Test
+    void shouldRejectPropertiesThatAreNotJson() {
+        contentStore.store(List.of(Chunk.builder()
+                .documentId("doc4")
+                .chunkId("0")
+                .totalChunks(1)
+                .text("java")
+                .properties(Map.of("published", LocalDate.of(2024, 11, 7)))
+                .build()));
+
+        assertThrows(LocalStoreException.class, () -> contentStore.writeSnapshot(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void shouldOnlyWriteSnapshotsOfQuantizedStoresThatKeepExactVectors() {
+        InternalContentStore compressed = new InternalContentStore(embedder, InternalContentStoreConfig.builder()
+                .scalarQuantization(ScalarQuantizationConfig.builder().build())
+                .build());
+        InternalContentStore reranked = new InternalContentStore(embedder, InternalContentStoreConfig.builder()
+                .scalarQuantization(ScalarQuantizationConfig.builder().rerank(true).build())
+                .build());
+        List<Chunk> chunks = List.of(chunk("doc1", "0", "java"), chunk("doc2", "0", "python"));
+        compressed.store(chunks);
+        reranked.store(chunks);
+
+        assertThrows(LocalStoreException.class, () -> compressed.writeSnapshot(new ByteArrayOutputStream()));
+        assertDoesNotThrow(() -> reranked.writeSnapshot(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void shouldLeaveTheStoreUnchangedWhenTheSnapshotIsTruncated() throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        contentStore.writeSnapshot(snapshot);
+        byte[] truncated = Arrays.copyOf(snapshot.toByteArray(), snapshot.size() - 5);
+
+        InternalContentStore restored = new InternalContentStore(embedder);
+        restored.store(List.of(chunk("doc1", "0", "python")));
+        assertThrows(EOFException.class, () -> restored.readSnapshot(new ByteArrayInputStream(truncated)));
+
+        assertEquals("python", restored.getChunk("doc1", "0").getText());
+        assertEquals(1, restored.findRelevantChunks("question", VECTORS.get("question about java"), 10).size());
+    }
+
+    @Test
+    void shouldRejectDataThatIsNotASnapshot() {
+        InternalContentStore restored = new InternalContentStore(embedder);
+
+        assertThrows(LocalStoreException.class,
+                () -> restored.readSnapshot(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    private static Embedder normalized(Map<String, List<Float>> vectors) {
+        return new Embedder() {
+            @Override
+            public List<Float> embed(String text) {
+                return vectors.get(text);
+            }
+
+            @Override
+            public boolean producesNormalizedVectors() {
+                return true;
+            }
+        };
+    }
+
+    private static List<Float> unitVector(Random random, int dimension) {
+        List<Float> vector = randomVector(random, dimension);
+        double norm = Math.sqrt(vector.stream().mapToDouble(value -> value * value).sum());
+        return vector.stream().map(value -> (float) (value / norm)).toList();
+    }
+
+    private static InternalContentStoreConfig scalarQuantized(ScalarQuantizationConfig.Calibration calibration,
+                                                              boolean rerank) {
+        return InternalContentStoreConfig.builder()
+                .scalarQuantization(ScalarQuantizationConfig.builder()
+                        .calibration(calibration)
+                        .trainingSize(500)
+                        .rerank(rerank)
+                        .build())
+                .build();
+    }
+
+    private static InternalContentStoreConfig productQuantized(boolean rerank) {
+        return InternalContentStoreConfig.builder()
+                .productQuantization(ProductQuantizationConfig.builder()
+                        .subVectors(4)
+                        .trainingSize(500)
+                        .rerank(rerank)
+                        .rerankFactor(5)
+                        .build())
+                .build();
+    }
+
+    private static List<Float> randomVector(Random random, int dimension) {
+        List<Float> vector = new ArrayList<>();
+        for (int i = 0; i < dimension; i++) {
+            vector.add(random.nextFloat());
+        }
+        return vector;
+    }
+
+    private static Chunk chunk(String documentId, String chunkId, String text) {
+        return Chunk.builder()
+                .documentId(documentId)
+                .chunkId(chunkId)
+                .totalChunks(1)
+                .text(text)
+                .properties(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+import org.rag4j.rag.retrieval.quality.ApproximateRetrievalReport;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IvfContentStoreTest {
+    private static final int DIMENSION = 16;
+    private static final IvfConfig CONFIG = IvfConfig.builder()
+            .numberOfLists(32)
+            .nprobe(6)
+            .build();
+
+    private final Map<String, List<Float>> vectors = new HashMap<>();
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Random random = new Random(21);
+    private final List<float[]> clusterCenters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 40; i++) {
+            float[] center = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                center[d] = random.nextFloat() * 10;
+            }
+            clusterCenters.add(center);
+        }
+        for (int i = 0; i < 2000; i++) {
+            vectors.put("text " + i, clusteredVector());
+            chunks.add(chunk("doc" + i, "text " + i));
+        }
+    }
+
+    @Test
+    void shouldReachHighRecallAfterTraining() {
+        InternalContentStore exactStore = new InternalContentStore(vectors::get);
+        exactStore.store(chunks);
+        IvfContentStore ivfStore = IvfContentStore.fromInternalContentStore(exactStore, vectors::get, CONFIG);
+
+        List<List<Float>> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            queries.add(clusteredVector());
+        }
+        ApproximateRetrievalReport report = ApproximateRetrievalReport.measure(exactStore, ivfStore, queries, 10);
+
+        assertTrue(ivfStore.isTrained());
+        assertTrue(report.getRecall() > 0.9, "Recall too low: " + report);
+    }
+
+    @Test
+    void shouldScanEverythingBeforeTraining() {
+        InternalContentStore exactStore = new InternalContentStore(vectors::get);
+        IvfContentStore ivfStore = new IvfContentStore(vectors::get, CONFIG);
+        exactStore.store(chunks);
+        ivfStore.store(chunks);
+
+        List<Float> question = clusteredVector();
+
+        assertFalse(ivfStore.isTrained());
+        assertEquals(exactStore.findRelevantChunks("question", question, 10),
+                ivfStore.findRelevantChunks("question", question, 10));
+    }
+
+    @Test
+    void shouldAssignChunksStoredAfterTraining() {
+        IvfContentStore ivfStore = new IvfContentStore(vectors::get, CONFIG);
+        ivfStore.store(chunks.subList(0, 1000));
+        ivfStore.train();
+        ivfStore.store(chunks.subList(1000, 2000));
+
+        List<RelevantChunk> relevantChunks = ivfStore.findRelevantChunks("text 1500", 1);
+
+        assertEquals("doc1500_0", relevantChunks.getFirst().getDocumentChunkId());
+    }
+
+    @Test
+    void shouldMoveReplacedChunkToNewList() {
+        IvfContentStore ivfStore = new IvfContentStore(vectors::get, CONFIG);
+        ivfStore.store(chunks);
+        ivfStore.train();
+        ivfStore.store(List.of(chunk("doc1", "text 2")));
+
+        List<RelevantChunk> relevantChunks = ivfStore.findRelevantChunks("text 2", 2);
+
+        assertEquals(Set.of("doc1_0", "doc2_0"), Set.of(
+                relevantChunks.get(0).getDocumentChunkId(), relevantChunks.get(1).getDocumentChunkId()));
+    }
+
+    private List<Float> clusteredVector() {
+        float[] center = clusterCenters.get(random.nextInt(clusterCenters.size()));
+        List<Float> vector = new ArrayList<>();
+        for (int d = 0; d < DIMENSION; d++) {
+            vector.add(center[d] + (float) random.nextGaussian() * 0.3f);
+        }
+        return vector;
+    }
+
+    private static Chunk chunk(String documentId, String text) {
+        return Chunk.builder()
+                .documentId(documentId)
+                .chunkId("0")
+                .totalChunks(1)
+                .text(text)
+                .properties(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rag4j.rag.embedding.Embedder;
+import org.rag4j.rag.model.Chunk;
+import org.rag4j.rag.model.RelevantChunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedContentStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldServeQueriesAfterReopeningWithoutEmbedding() {
+        Map<String, List<Float>> vectors = Map.of(
+                "java", List.of(1.0f, 0.0f, 0.0f),
+                "kotlin", List.of(0.9f, 0.1f, 0.0f),
+                "python", List.of(0.0f, 1.0f, 0.0f)
+        );
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(List.of(
+                    chunk("doc1", "0", "java", Map.of("title", "Java")),
+                    chunk("doc1", "1", "kotlin", Map.of()),
+                    chunk("doc2", "0", "python", Map.of())
+            ));
+        }
+
+        Embedder failingEmbedder = text -> {
+            throw new IllegalStateException("Chunks should not be embedded again");
+        };
+        try (MappedContentStore reopened = new MappedContentStore(failingEmbedder, directory)) {
+            List<RelevantChunk> relevantChunks = reopened.findRelevantChunks(
+                    "question", List.of(0.97f, 0.03f, 0.0f), 2);
+
+            assertEquals("doc1_0", relevantChunks.get(0).getDocumentChunkId());
+            assertEquals("doc1_1", relevantChunks.get(1).getDocumentChunkId());
+            assertEquals(Math.sqrt(0.03 * 0.03 + 0.03 * 0.03), relevantChunks.get(0).getScore(), 1e-6);
+            assertEquals("Java", reopened.getChunk("doc1", "0").getProperties().get("title"));
+        }
+    }
+
+    @Test
+    void shouldKeepReplacedChunkAfterReopening() {
+        Map<String, List<Float>> vectors = Map.of(
+                "java", List.of(1.0f, 0.0f),
+                "python", List.of(0.0f, 1.0f),
+                "rust", List.of(0.7f, 0.7f)
+        );
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(List.of(chunk("doc1", "0", "java", Map.of()), chunk("doc2", "0", "python", Map.of())));
+            contentStore.store(List.of(chunk("doc1", "0", "rust", Map.of())));
+        }
+
+        try (MappedContentStore reopened = new MappedContentStore(vectors::get, directory)) {
+            List<Chunk> chunks = new ArrayList<>();
+            reopened.loopOverChunks(chunks::add);
+
+            assertEquals(2, chunks.size());
+            assertEquals("rust", reopened.getChunk("doc1", "0").getText());
+            assertEquals("doc1_0", reopened.findRelevantChunks("rust", 1).getFirst().getDocumentChunkId());
+        }
+    }
+
+    @Test
+    void shouldCompactTheChunkFileWhenMostLinesAreReplaced() throws IOException {
+        Map<String, List<Float>> vectors = Map.of(
+                "java", List.of(1.0f, 0.0f),
+                "python", List.of(0.0f, 1.0f),
+                "rust", List.of(0.7f, 0.7f)
+        );
+        Path chunkFile = directory.resolve(MappedContentStore.CHUNK_FILE);
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(List.of(chunk("doc1", "0", "java", Map.of()), chunk("doc2", "0", "python", Map.of())));
+            contentStore.store(List.of(chunk("doc1", "0", "rust", Map.of()), chunk("doc1", "0", "java", Map.of())));
+            assertEquals(4, Files.readAllLines(chunkFile).size());
+
+            contentStore.store(List.of(chunk("doc1", "0", "rust", Map.of())));
+            assertEquals(2, Files.readAllLines(chunkFile).size());
+            contentStore.store(List.of(chunk("doc3", "0", "python", Map.of())));
+        }
+
+        try (MappedContentStore reopened = new MappedContentStore(vectors::get, directory)) {
+            assertEquals(3, Files.readAllLines(chunkFile).size());
+            assertEquals("rust", reopened.getChunk("doc1", "0").getText());
+            assertEquals("python", reopened.getChunk("doc3", "0").getText());
+            assertEquals("doc1_0", reopened.findRelevantChunks("rust", 1).getFirst().getDocumentChunkId());
+        }
+    }
+
+    @Test
+    void shouldStoreAKeyThatAppearsTwiceInOneBatchOnce() {
+        Map<String, List<Float>> vectors = Map.of(
+                "java", List.of(1.0f, 0.0f),
+                "python", List.of(0.0f, 1.0f)
+        );
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(List.of(chunk("doc1", "0", "java", Map.of()), chunk("doc1", "0", "python", Map.of())));
+        }
+
+        try (MappedContentStore reopened = new MappedContentStore(vectors::get, directory)) {
+            List<Chunk> chunks = new ArrayList<>();
+            reopened.loopOverChunks(chunks::add);
+
+            assertEquals(1, chunks.size());
+            assertEquals("python", reopened.getChunk("doc1", "0").getText());
+            assertEquals(0.0, reopened.findRelevantChunks("python", 1).getFirst().getScore(), 1e-6);
+        }
+    }
+
+    @Test
+    void shouldRefuseToOpenVectorsWithoutTheirChunkFile() throws IOException {
+        Map<String, List<Float>> vectors = Map.of("java", List.of(1.0f, 0.0f));
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(List.of(chunk("doc1", "0", "java", Map.of())));
+        }
+        Files.delete(directory.resolve(MappedContentStore.CHUNK_FILE));
+
+        assertThrows(LocalStoreException.class, () -> new MappedContentStore(vectors::get, directory));
+    }
+
+    @Test
+    void shouldMatchInternalContentStoreWhenFileGrows() {
+        Random random = new Random(5);
+        Map<String, List<Float>> vectors = new HashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            List<Float> vector = new ArrayList<>();
+            for (int d = 0; d < 8; d++) {
+                vector.add(random.nextFloat());
+            }
+            vectors.put("text " + i, vector);
+            chunks.add(chunk("doc" + i, "0", "text " + i, Map.of()));
+        }
+        InternalContentStore internalContentStore = new InternalContentStore(vectors::get);
+        internalContentStore.store(chunks);
+        try (MappedContentStore contentStore = new MappedContentStore(vectors::get, directory)) {
+            contentStore.store(chunks);
+        }
+
+        try (MappedContentStore reopened = new MappedContentStore(vectors::get, directory)) {
+            List<Float> question = vectors.get("text 42");
+            List<String> expected = internalContentStore.findRelevantChunks("question", question, 10).stream()
+                    .map(RelevantChunk::getDocumentChunkId).toList();
+            List<String> actual = reopened.findRelevantChunks("question", question, 10).stream()
+                    .map(RelevantChunk::getDocumentChunkId).toList();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static Chunk chunk(String documentId, String chunkId, String text, Map<String, Object> properties) {
+        return Chunk.builder()
+                .documentId(documentId)
+                .chunkId(chunkId)
+                .totalChunks(1)
+                .text(text)
+                .properties(properties)
+                .build();
+    }
+}
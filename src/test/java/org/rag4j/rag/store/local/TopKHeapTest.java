@@ -0,0 +1,74 @@
+package org.rag4j.rag.store.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKHeapTest {
+
+    @Test
+    void shouldSelectLowestScoresInAscendingOrder() {
+        double[] candidates = new Random(42).doubles(1000).toArray();
+        TopKHeap heap = new TopKHeap(10);
+        for (int slot = 0; slot < candidates.length; slot++) {
+            heap.offer(candidates[slot], slot);
+        }
+
+        double[] scores = new double[heap.size()];
+        int[] slots = heap.drainSorted(scores);
+
+        int[] expected = IntStream.range(0, candidates.length).boxed()
+                .sorted(Comparator.comparingDouble(slot -> candidates[slot]))
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, slots);
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals(candidates[slots[i]], scores[i]);
+        }
+    }
+
+    @Test
+    void shouldPreferLowerSlotOnEqualScores() {
+        TopKHeap heap = new TopKHeap(2);
+        heap.offer(1.0, 5);
+        heap.offer(1.0, 3);
+        heap.offer(1.0, 4);
+
+        int[] slots = heap.drainSorted(new double[2]);
+
+        assertArrayEquals(new int[]{3, 4}, slots);
+    }
+
+    @Test
+    void shouldMergePartialHeaps() {
+        TopKHeap first = new TopKHeap(3);
+        TopKHeap second = new TopKHeap(3);
+        first.offer(0.5, 0);
+        first.offer(0.1, 1);
+        second.offer(0.3, 2);
+        second.offer(0.9, 3);
+        second.offer(0.2, 4);
+
+        first.merge(second);
+        double[] scores = new double[first.size()];
+        int[] slots = first.drainSorted(scores);
+
+        assertArrayEquals(new int[]{1, 4, 2}, slots);
+        assertEquals("[0.1, 0.2, 0.3]", Arrays.toString(scores));
+    }
+
+    @Test
+    void shouldKeepNothingWhenKIsZero() {
+        TopKHeap heap = new TopKHeap(0);
+        heap.offer(0.1, 0);
+
+        assertEquals(0, heap.size());
+    }
+}
@@ -0,0 +1,92 @@
+package org.rag4j.util.vector;
+
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the distance kernels with the commons-math <code>EuclideanDistance</code> on doubles that was used before.
+ * Run it from the test classpath, JMH forks a JVM for the measurements so it needs the full classpath:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) org.openjdk.jmh.Main DistanceKernelBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class DistanceKernelBenchmark {
+    @Param({"384", "1536"})
+    private int dimension;
+
+    private float[] a;
+    private float[] b;
+    private double[] aDoubles;
+    private double[] bDoubles;
+
+    private final EuclideanDistance euclideanDistance = new EuclideanDistance();
+    private final DistanceKernel scalar = DistanceKernels.scalar();
+    private final DistanceKernel vectorApi = DistanceKernels.vectorApi().orElseThrow();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        this.a = new float[this.dimension];
+        this.b = new float[this.dimension];
+        this.aDoubles = new double[this.dimension];
+        this.bDoubles = new double[this.dimension];
+        for (int i = 0; i < this.dimension; i++) {
+            this.a[i] = random.nextFloat() * 2 - 1;
+            this.b[i] = random.nextFloat() * 2 - 1;
+            this.aDoubles[i] = this.a[i];
+            this.bDoubles[i] = this.b[i];
+        }
+    }
+
+    @Benchmark
+    public double commonsMathEuclidean() {
+        return this.euclideanDistance.compute(this.aDoubles, this.bDoubles);
+    }
+
+    @Benchmark
+    public double scalarSquaredEuclidean() {
+        return this.scalar.squaredEuclidean(this.a, this.b);
+    }
+
+    @Benchmark
+    public double vectorApiSquaredEuclidean() {
+        return this.vectorApi.squaredEuclidean(this.a, this.b);
+    }
+
+    @Benchmark
+    public double scalarDotProduct() {
+        return this.scalar.dotProduct(this.a, this.b);
+    }
+
+    @Benchmark
+    public double vectorApiDotProduct() {
+        return this.vectorApi.dotProduct(this.a, this.b);
+    }
+
+    @Benchmark
+    public double scalarCosine() {
+        return this.scalar.cosineSimilarity(this.a, this.b);
+    }
+
+    @Benchmark
+    public double vectorApiCosine() {
+        return this.vectorApi.cosineSimilarity(this.a, this.b);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DistanceKernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
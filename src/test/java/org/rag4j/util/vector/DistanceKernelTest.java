@@ -0,0 +1,97 @@
+package org.rag4j.util.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceKernelTest {
+
+    @Test
+    void shouldSelectVectorApiKernelWhenModuleIsAvailable() {
+        // Selects like DistanceKernels.get() does, which follows the rag4j.distance.kernel property of the test run
+        assertTrue(DistanceKernels.vectorApi().isPresent());
+        assertInstanceOf(VectorApiDistanceKernel.class, DistanceKernels.select("vector"));
+    }
+
+    @Test
+    void shouldSelectScalarKernelWhenForced() {
+        assertSame(DistanceKernels.scalar(), DistanceKernels.select("scalar"));
+    }
+
+    @Test
+    void scalarKernelShouldSumInDouble() {
+        Random random = new Random(11);
+        float[] a = new float[384];
+        float[] b = new float[384];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextFloat() * 2 - 1;
+            b[i] = random.nextFloat() * 2 - 1;
+        }
+
+        double squared = 0.0;
+        double dot = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double diff = (double) a[i] - b[i];
+            squared += diff * diff;
+            dot += (double) a[i] * b[i];
+        }
+
+        assertEquals(squared, DistanceKernels.scalar().squaredEuclidean(a, b));
+        assertEquals(dot, DistanceKernels.scalar().dotProduct(a, b));
+    }
+
+    @Test
+    void scalarKernelShouldMatchReference() {
+        checkAgainstReference(DistanceKernels.scalar());
+    }
+
+    @Test
+    void vectorApiKernelShouldMatchReference() {
+        checkAgainstReference(DistanceKernels.vectorApi().orElseThrow());
+    }
+
+    @Test
+    void shouldReturnZeroCosineForEmptyVector() {
+        float[] zero = new float[20];
+        float[] other = new float[20];
+        other[3] = 1f;
+
+        assertEquals(0.0, DistanceKernels.scalar().cosineSimilarity(zero, other));
+        assertEquals(0.0, DistanceKernels.vectorApi().orElseThrow().cosineSimilarity(zero, other));
+    }
+
+    private static void checkAgainstReference(DistanceKernel kernel) {
+        Random random = new Random(7);
+        // Lengths around the vector widths check the tail handling
+        for (int length : new int[]{1, 3, 7, 8, 15, 16, 17, 33, 384}) {
+            int offset = 5;
+            float[] a = new float[offset + length];
+            float[] b = new float[length];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = random.nextFloat() * 2 - 1;
+            }
+            for (int i = 0; i < b.length; i++) {
+                b[i] = random.nextFloat() * 2 - 1;
+            }
+
+            double squared = 0.0;
+            double dot = 0.0;
+            double normA = 0.0;
+            double normB = 0.0;
+            for (int i = 0; i < length; i++) {
+                double diff = a[offset + i] - b[i];
+                squared += diff * diff;
+                dot += a[offset + i] * b[i];
+                normA += a[offset + i] * a[offset + i];
+                normB += b[i] * b[i];
+            }
+
+            assertEquals(squared, kernel.squaredEuclidean(a, offset, b, 0, length), 1e-4, "L2 length " + length);
+            assertEquals(dot, kernel.dotProduct(a, offset, b, 0, length), 1e-4, "dot length " + length);
+            assertEquals(dot / Math.sqrt(normA * normB), kernel.cosineSimilarity(a, offset, b, 0, length), 1e-5,
+                    "cosine length " + length);
+        }
+    }
+}